@@ -0,0 +1,31 @@
+package net.tnemc.config.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Runs the benchmarks with the GC profiler attached, so every result reports its allocation rate. Accepts the
+ * regular JMH command line options, i.e. "java -jar TheNewConfigLibrary-benchmarks.jar LookupBenchmark -p nodes=1000".
+ */
+public final class BenchmarkRunner {
+
+  private BenchmarkRunner() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+                   .parent(new CommandLineOptions(args))
+                   .addProfiler(GCProfiler.class)
+                   .build()).run();
+  }
+}
@@ -0,0 +1,73 @@
+package net.tnemc.config.benchmark;
+
+import com.hellyard.cuttlefish.grammar.yaml.YamlNode;
+import net.tnemc.config.CommentedConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Measures parsing and building configuration trees: {@link CommentedConfiguration#load()} with and without a
+ * defaults file, and decoding already parsed nodes into sections.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadBenchmark {
+
+  @Param({"100", "1000", "10000", "100000"})
+  public int nodes;
+
+  private String text;
+  private String defaults;
+  private LinkedList<YamlNode> parsed;
+
+  @Setup
+  public void setup() {
+    text = SyntheticConfig.generate(nodes, true);
+    defaults = SyntheticConfig.generate(nodes, false);
+    parsed = SyntheticConfig.parse(text);
+  }
+
+  @Benchmark
+  public CommentedConfiguration load() {
+    final CommentedConfiguration config = new CommentedConfiguration(new StringReader(text), null);
+    config.load(false);
+    return config;
+  }
+
+  @Benchmark
+  public CommentedConfiguration loadWithDefaults() {
+    final CommentedConfiguration config = new CommentedConfiguration(new StringReader(text), new StringReader(defaults));
+    config.load(true);
+    return config;
+  }
+
+  @Benchmark
+  public CommentedConfiguration decodeNodes() {
+    return new SyntheticConfig.Decoder().decode(parsed);
+  }
+}
@@ -0,0 +1,99 @@
+package net.tnemc.config.benchmark;
+
+import com.hellyard.cuttlefish.grammar.yaml.YamlNode;
+import net.tnemc.config.CommentedConfiguration;
+import net.tnemc.config.ConfigPath;
+import net.tnemc.config.ConfigSection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Measures reads from a loaded configuration: section lookups and typed getters at increasing depth, through
+ * both dotted strings and {@link ConfigPath precompiled paths}, along with key listings and node collection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+
+  @Param({"100", "1000", "10000", "100000"})
+  public int nodes;
+
+  @Param({"1", "2", "4"})
+  public int depth;
+
+  private CommentedConfiguration config;
+  private String node;
+  private ConfigPath path;
+
+  @Setup
+  public void setup() {
+    config = SyntheticConfig.load(SyntheticConfig.generate(nodes, false));
+    node = SyntheticConfig.path(depth);
+    path = ConfigPath.of(node);
+  }
+
+  @Benchmark
+  public ConfigSection getSection() {
+    return config.getSection(node);
+  }
+
+  @Benchmark
+  public ConfigSection getSectionPath() {
+    return config.getSection(path);
+  }
+
+  @Benchmark
+  public String getString() {
+    return config.getString(node);
+  }
+
+  @Benchmark
+  public int getInt() {
+    return config.getInt(node);
+  }
+
+  @Benchmark
+  public int getIntPath() {
+    return config.getInt(path);
+  }
+
+  @Benchmark
+  public Set<String> getKeys() {
+    return config.getKeys(false);
+  }
+
+  @Benchmark
+  public Set<String> getKeysDeep() {
+    return config.getKeys(true);
+  }
+
+  @Benchmark
+  public LinkedList<YamlNode> getNodeValues() {
+    return config.getNodeValues();
+  }
+}
@@ -0,0 +1,111 @@
+package net.tnemc.config.benchmark;
+
+import com.hellyard.cuttlefish.CuttlefishBuilder;
+import com.hellyard.cuttlefish.grammar.yaml.YamlNode;
+import net.tnemc.config.CommentedConfiguration;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.LinkedList;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Generates synthetic YAML configurations of a requested size. Every section holds a "value" node followed by
+ * its child sections "s0", "s1", ..., four levels deep, so "value", "s0.value", "s0.s0.value" and
+ * "s0.s0.s0.value" always exist and can be used to measure lookups at increasing depth.
+ */
+public final class SyntheticConfig {
+
+  private static final int DEPTH = 4;
+
+  private SyntheticConfig() {
+  }
+
+  /**
+   * Generates a configuration with roughly the specified amount of nodes.
+   * @param nodes The amount of nodes to generate.
+   * @param sparse Whether to leave out every tenth value node, so that merging the full configuration in as
+   *               defaults has nodes to copy over.
+   * @return The YAML text of the configuration.
+   */
+  public static String generate(int nodes, boolean sparse) {
+    int fanout = 2;
+    while(Math.pow(fanout, DEPTH) < nodes) {
+      fanout++;
+    }
+
+    final StringBuilder builder = new StringBuilder(nodes * 16);
+    emit(builder, "", 0, fanout, nodes, sparse, new int[1]);
+    return builder.toString();
+  }
+
+  private static void emit(StringBuilder builder, String indent, int level, int fanout, int limit, boolean sparse, int[] count) {
+    final int value = count[0]++;
+    if(!sparse || value % 10 != 5) {
+      builder.append(indent).append("value: ").append(value).append('\n');
+    }
+    if(level == DEPTH) return;
+
+    for(int i = 0; i < fanout && count[0] < limit; i++) {
+      builder.append(indent).append('s').append(i).append(":\n");
+      count[0]++;
+      emit(builder, indent + "  ", level + 1, fanout, limit, sparse, count);
+    }
+  }
+
+  /**
+   * Returns the path of the value node at the specified depth.
+   * @param depth The depth, from 1 for a top-level node to 4.
+   * @return The dotted path of the value node.
+   */
+  public static String path(int depth) {
+    final StringBuilder builder = new StringBuilder();
+    for(int i = 1; i < depth; i++) {
+      builder.append("s0.");
+    }
+    return builder.append("value").toString();
+  }
+
+  /**
+   * Parses the specified YAML text into its nodes.
+   * @param text The YAML text.
+   * @return The parsed nodes.
+   */
+  @SuppressWarnings("unchecked")
+  public static LinkedList<YamlNode> parse(String text) {
+    return (LinkedList<YamlNode>)new CuttlefishBuilder(new StringReader(text), "yaml").build().getNodes();
+  }
+
+  /**
+   * Loads the specified YAML text into a new configuration without a file behind it.
+   * @param text The YAML text.
+   * @return The loaded configuration.
+   */
+  public static CommentedConfiguration load(String text) {
+    final CommentedConfiguration config = new CommentedConfiguration(new StringReader(text), (Reader)null);
+    config.load(false);
+    return config;
+  }
+
+  /**
+   * A configuration that exposes {@link CommentedConfiguration#decodeNodes(LinkedList)} to the benchmarks.
+   */
+  public static final class Decoder extends CommentedConfiguration {
+
+    public Decoder() {
+      super((Reader)null, (Reader)null);
+    }
+
+    public Decoder decode(LinkedList<YamlNode> nodes) {
+      decodeNodes(nodes);
+      return this;
+    }
+  }
+}
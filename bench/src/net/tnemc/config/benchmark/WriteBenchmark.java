@@ -0,0 +1,84 @@
+package net.tnemc.config.benchmark;
+
+import com.hellyard.cuttlefish.grammar.yaml.YamlNode;
+import net.tnemc.config.CommentedConfiguration;
+import net.tnemc.config.ConfigSection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Measures changes to a configuration: inserting a section at an index, and saving the whole configuration
+ * to disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBenchmark {
+
+  @Param({"100", "1000", "10000", "100000"})
+  public int nodes;
+
+  private LinkedList<YamlNode> parsed;
+  private CommentedConfiguration config;
+  private CommentedConfiguration fresh;
+  private File target;
+
+  @Setup
+  public void setup() throws IOException {
+    parsed = SyntheticConfig.parse(SyntheticConfig.generate(nodes, false));
+    config = new SyntheticConfig.Decoder().decode(parsed);
+    target = File.createTempFile("benchmark", ".yml");
+  }
+
+  @Setup(Level.Invocation)
+  public void freshTree() {
+    fresh = new SyntheticConfig.Decoder().decode(parsed);
+  }
+
+  @TearDown
+  public void tearDown() {
+    target.delete();
+  }
+
+  @Benchmark
+  public ConfigSection addChildIndex() {
+    final ConfigSection section = fresh.getSection("s0");
+    final YamlNode base = section.getBaseNode();
+    final ConfigSection inserted = new ConfigSection(new YamlNode(base, base.getIndentation() + 2, base.getLineNumber() + 1,
+                                                                  "inserted:", new LinkedList<>(), "inserted", base.getNode() + ".inserted"));
+    section.addChildIndex(1, "inserted", inserted);
+    return section;
+  }
+
+  @Benchmark
+  public boolean save() {
+    return config.save(target);
+  }
+}
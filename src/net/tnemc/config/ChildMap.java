@@ -0,0 +1,564 @@
+package net.tnemc.config;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * The ordered child {@link ConfigSection sections} of a section. Up to {@link #SMALL} children are kept inline in
+ * a single array of keys and sections, in order, which is all most sections ever need. Larger maps look keys up
+ * through a hash map, while their order is kept in a tree that is balanced by random priorities (an implicit
+ * treap), so inserting, removing or moving a key at any position takes logarithmic time instead of rebuilding
+ * the whole map. Sections without children share {@link #EMPTY}.
+ *
+ * A ChildMap isn't thread-safe. {@link ConfigSection Sections} never modify a map once it's published, and
+ * instead {@link #copy() copy} it, modify the copy and publish that. It's internal to this package, and only
+ * reaches other code wrapped in unmodifiable views, whose entries are immutable snapshots of the key and section.
+ */
+final class ChildMap extends AbstractMap<String, ConfigSection> {
+
+  /**
+   * The most children kept inline before switching to a hash map and tree.
+   */
+  static final int SMALL = 8;
+
+  /**
+   * The children of every section that has none, which can't be modified.
+   */
+  static final ChildMap EMPTY = new ChildMap();
+
+  private static final Object[] NONE = new Object[0];
+
+  //Inline storage: the keys and sections of the first count children, interleaved in order.
+  private Object[] slots = NONE;
+  private int count = 0;
+
+  //Tree storage, used instead of the inline storage once nodes isn't null.
+  private HashMap<String, Node> nodes = null;
+  private Node root = null;
+
+  /**
+   * The keys of this map folded for case-insensitive lookups, built on the first such lookup and dropped
+   * whenever the map is modified.
+   */
+  private volatile FoldedIndex folded = null;
+
+  /**
+   * Constructor for an empty {@link ChildMap}.
+   */
+  ChildMap() {
+  }
+
+  /**
+   * Returns a copy of this map, which can be modified without affecting this one.
+   * @return The copy.
+   */
+  ChildMap copy() {
+    final ChildMap copy = new ChildMap();
+    if(nodes == null) {
+      if(count > 0) copy.slots = Arrays.copyOf(slots, count * 2);
+      copy.count = count;
+      return copy;
+    }
+
+    copy.nodes = new HashMap<>((int)(nodes.size() / 0.75f) + 1);
+    final Node[] ordered = new Node[nodes.size()];
+    int i = 0;
+    for(Node node = first(root); node != null; node = next(node)) {
+      final Node copied = new Node(node.key, node.value, node.priority);
+      copy.nodes.put(node.key, copied);
+      ordered[i++] = copied;
+    }
+    copy.root = build(ordered);
+    return copy;
+  }
+
+  @Override
+  public int size() {
+    return (nodes == null)? count : nodes.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return (nodes == null)? slot(key) >= 0 : nodes.containsKey(key);
+  }
+
+  @Override
+  public ConfigSection get(Object key) {
+    if(nodes == null) {
+      final int slot = slot(key);
+      return (slot < 0)? null : (ConfigSection)slots[slot * 2 + 1];
+    }
+    final Node node = nodes.get(key);
+    return (node == null)? null : node.value;
+  }
+
+  /**
+   * Sets the section of the specified key, keeping its position if it already exists, otherwise adding it to
+   * the end.
+   * @param key The key.
+   * @param value The section.
+   * @return The previous section of the key, or null.
+   */
+  @Override
+  public ConfigSection put(String key, ConfigSection value) {
+    checkWritable();
+    if(nodes == null) {
+      final int slot = slot(key);
+      if(slot >= 0) {
+        final ConfigSection previous = (ConfigSection)slots[slot * 2 + 1];
+        slots[slot * 2 + 1] = value;
+        return previous;
+      }
+    } else {
+      final Node existing = nodes.get(key);
+      if(existing != null) {
+        final ConfigSection previous = existing.value;
+        existing.value = value;
+        return previous;
+      }
+    }
+    insert(size(), key, value);
+    return null;
+  }
+
+  /**
+   * Inserts the specified key at the specified position, moving it there if it already exists.
+   * @param index The position, which is clamped to the start and end of this map.
+   * @param key The key.
+   * @param value The section.
+   */
+  void insert(int index, String key, ConfigSection value) {
+    checkWritable();
+    remove(key);
+    final int position = Math.max(0, Math.min(index, size()));
+
+    if(nodes == null) {
+      if(count < SMALL) {
+        insertInline(position, key, value);
+        return;
+      }
+      promote();
+    }
+
+    final Node node = new Node(key, value, ThreadLocalRandom.current().nextInt());
+    nodes.put(key, node);
+
+    final Node[] split = split(root, position);
+    root = merge(merge(split[0], node), split[1]);
+    root.parent = null;
+  }
+
+  @Override
+  public ConfigSection remove(Object key) {
+    checkWritable();
+    if(nodes == null) {
+      final int slot = slot(key);
+      if(slot < 0) return null;
+
+      final ConfigSection previous = (ConfigSection)slots[slot * 2 + 1];
+      System.arraycopy(slots, slot * 2 + 2, slots, slot * 2, (count - slot - 1) * 2);
+      count--;
+      slots[count * 2] = null;
+      slots[count * 2 + 1] = null;
+      return previous;
+    }
+
+    final Node node = nodes.remove(key);
+    if(node == null) return null;
+
+    final Node[] left = split(root, indexOf(node));
+    final Node[] right = split(left[1], 1);
+    root = merge(left[0], right[1]);
+    if(root != null) root.parent = null;
+    return node.value;
+  }
+
+  /**
+   * Moves the specified key to the specified position.
+   * @param key The key to move.
+   * @param index The position, which is clamped to the start and end of this map.
+   * @return True if the key exists, otherwise false.
+   */
+  boolean move(String key, int index) {
+    if(!containsKey(key)) return false;
+
+    insert(index, key, get(key));
+    return true;
+  }
+
+  /**
+   * Returns the position of the specified key.
+   * @param key The key.
+   * @return The position of the key, or -1 if it doesn't exist.
+   */
+  int indexOf(String key) {
+    if(nodes == null) return slot(key);
+
+    final Node node = nodes.get(key);
+    return (node == null)? -1 : indexOf(node);
+  }
+
+  /**
+   * Returns the section of the specified key ignoring case, preferring a key that matches exactly if several
+   * differ only in case.
+   * @param key The key.
+   * @return The section, or null if no key matches.
+   */
+  ConfigSection getIgnoreCase(String key) {
+    if(size() == 0) return null;
+
+    final FoldedIndex index = folded();
+    final int slot = index.find(key);
+    return (slot < 0)? null : index.values[slot];
+  }
+
+  /**
+   * Returns the key of this map that matches the specified key ignoring case, in its original case.
+   * @param key The key.
+   * @return The matching key, or null if no key matches.
+   */
+  String keyIgnoreCase(String key) {
+    if(size() == 0) return null;
+
+    final FoldedIndex index = folded();
+    final int slot = index.find(key);
+    return (slot < 0)? null : index.keys[slot];
+  }
+
+  /**
+   * Returns the key at the specified position, without allocating anything.
+   * @param index The position, which must be less than {@link #size()}.
+   * @return The key.
+   */
+  String keyAt(int index) {
+    return (nodes == null)? (String)slots[inline(index) * 2] : nodeAt(index).key;
+  }
+
+  /**
+   * Returns the section at the specified position, without allocating anything.
+   * @param index The position, which must be less than {@link #size()}.
+   * @return The section.
+   */
+  ConfigSection valueAt(int index) {
+    return (nodes == null)? (ConfigSection)slots[inline(index) * 2 + 1] : nodeAt(index).value;
+  }
+
+  @Override
+  public void clear() {
+    checkWritable();
+    slots = NONE;
+    count = 0;
+    nodes = null;
+    root = null;
+  }
+
+  @Override
+  public Set<Entry<String, ConfigSection>> entrySet() {
+    return new AbstractSet<Entry<String, ConfigSection>>() {
+      @Override
+      public Iterator<Entry<String, ConfigSection>> iterator() {
+        if(nodes == null) {
+          return new Iterator<Entry<String, ConfigSection>>() {
+            private final Object[] entries = slots;
+            private final int size = count;
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+              return i < size;
+            }
+
+            @Override
+            public Entry<String, ConfigSection> next() {
+              if(i >= size) throw new NoSuchElementException();
+              final Entry<String, ConfigSection> entry =
+                  new SimpleImmutableEntry<>((String)entries[i * 2], (ConfigSection)entries[i * 2 + 1]);
+              i++;
+              return entry;
+            }
+          };
+        }
+
+        return new Iterator<Entry<String, ConfigSection>>() {
+          private Node current = first(root);
+
+          @Override
+          public boolean hasNext() {
+            return current != null;
+          }
+
+          @Override
+          public Entry<String, ConfigSection> next() {
+            if(current == null) throw new NoSuchElementException();
+            final Node node = current;
+            current = ChildMap.next(node);
+            return new SimpleImmutableEntry<>(node.key, node.value);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return ChildMap.this.size();
+      }
+    };
+  }
+
+  private void checkWritable() {
+    if(this == EMPTY) throw new UnsupportedOperationException("The shared empty children can't be modified.");
+    folded = null;
+  }
+
+  private FoldedIndex folded() {
+    FoldedIndex index = folded;
+    if(index == null) {
+      index = new FoldedIndex(this);
+      folded = index;
+    }
+    return index;
+  }
+
+  private int slot(Object key) {
+    for(int i = 0; i < count; i++) {
+      final Object existing = slots[i * 2];
+      if(existing == key || existing.equals(key)) return i;
+    }
+    return -1;
+  }
+
+  private void insertInline(int position, String key, ConfigSection value) {
+    if(slots.length < (count + 1) * 2) {
+      slots = Arrays.copyOf(slots, Math.min(SMALL, Math.max(2, count * 2)) * 2);
+    }
+    System.arraycopy(slots, position * 2, slots, position * 2 + 2, (count - position) * 2);
+    slots[position * 2] = key;
+    slots[position * 2 + 1] = value;
+    count++;
+  }
+
+  /**
+   * Moves the inline children into a hash map and tree.
+   */
+  private void promote() {
+    final Node[] ordered = new Node[count];
+    nodes = new HashMap<>((int)((count + 1) / 0.75f) + 1);
+    for(int i = 0; i < count; i++) {
+      final Node node = new Node((String)slots[i * 2], (ConfigSection)slots[i * 2 + 1], ThreadLocalRandom.current().nextInt());
+      nodes.put(node.key, node);
+      ordered[i] = node;
+    }
+    root = build(ordered);
+    slots = NONE;
+    count = 0;
+  }
+
+  private int inline(int index) {
+    if(index < 0 || index >= count) throw new IndexOutOfBoundsException("Index: " + index);
+    return index;
+  }
+
+  private Node nodeAt(int index) {
+    if(index < 0 || index >= nodes.size()) throw new IndexOutOfBoundsException("Index: " + index);
+
+    Node node = root;
+    while(true) {
+      final int left = size(node.left);
+      if(index == left) return node;
+
+      if(index < left) {
+        node = node.left;
+      } else {
+        index -= left + 1;
+        node = node.right;
+      }
+    }
+  }
+
+  private static int size(Node node) {
+    return (node == null)? 0 : node.size;
+  }
+
+  private static Node update(Node node) {
+    node.size = 1 + size(node.left) + size(node.right);
+    if(node.left != null) node.left.parent = node;
+    if(node.right != null) node.right.parent = node;
+    return node;
+  }
+
+  /**
+   * Splits a tree into the nodes before the specified position and the nodes from it onwards.
+   */
+  private static Node[] split(Node node, int position) {
+    if(node == null) return new Node[2];
+
+    if(size(node.left) >= position) {
+      final Node[] result = split(node.left, position);
+      node.left = result[1];
+      result[1] = update(node);
+      if(result[0] != null) result[0].parent = null;
+      return result;
+    }
+
+    final Node[] result = split(node.right, position - size(node.left) - 1);
+    node.right = result[0];
+    result[0] = update(node);
+    if(result[1] != null) result[1].parent = null;
+    return result;
+  }
+
+  /**
+   * Joins two trees, where every node of the first precedes every node of the second.
+   */
+  private static Node merge(Node left, Node right) {
+    if(left == null) return right;
+    if(right == null) return left;
+
+    if(left.priority > right.priority) {
+      left.right = merge(left.right, right);
+      return update(left);
+    }
+    right.left = merge(left, right.left);
+    return update(right);
+  }
+
+  /**
+   * Builds a tree from nodes in order, keeping their priorities in heap order, in linear time.
+   */
+  private static Node build(Node[] ordered) {
+    if(ordered.length == 0) return null;
+
+    final Node[] spine = new Node[ordered.length];
+    int top = 0;
+    for(Node node : ordered) {
+      Node popped = null;
+      while(top > 0 && spine[top - 1].priority < node.priority) {
+        popped = spine[--top];
+      }
+      node.left = popped;
+      if(top > 0) spine[top - 1].right = node;
+      spine[top++] = node;
+    }
+
+    final Node root = spine[0];
+    sizes(root);
+    root.parent = null;
+    return root;
+  }
+
+  private static void sizes(Node node) {
+    if(node.left != null) sizes(node.left);
+    if(node.right != null) sizes(node.right);
+    update(node);
+  }
+
+  private static int indexOf(Node node) {
+    int index = size(node.left);
+    while(node.parent != null) {
+      if(node.parent.right == node) {
+        index += size(node.parent.left) + 1;
+      }
+      node = node.parent;
+    }
+    return index;
+  }
+
+  private static Node first(Node node) {
+    if(node == null) return null;
+    while(node.left != null) node = node.left;
+    return node;
+  }
+
+  private static Node next(Node node) {
+    if(node.right != null) return first(node.right);
+    while(node.parent != null && node.parent.right == node) {
+      node = node.parent;
+    }
+    return node.parent;
+  }
+
+  /**
+   * An open-addressing table of the keys of a map, hashed by their case-folded characters, so a key is found
+   * ignoring case with a single probe sequence, without folding it into a new string first.
+   */
+  private static final class FoldedIndex {
+    private final String[] keys;
+    private final ConfigSection[] values;
+    private final int mask;
+
+    FoldedIndex(ChildMap map) {
+      int capacity = 2;
+      while(capacity < map.size() * 2) capacity <<= 1;
+      keys = new String[capacity];
+      values = new ConfigSection[capacity];
+      mask = capacity - 1;
+
+      for(Map.Entry<String, ConfigSection> entry : map.entrySet()) {
+        int slot = hash(entry.getKey()) & mask;
+        while(keys[slot] != null) slot = (slot + 1) & mask;
+        keys[slot] = entry.getKey();
+        values[slot] = entry.getValue();
+      }
+    }
+
+    /**
+     * Returns the slot of the exact key if it exists, otherwise of the first key in map order that matches it
+     * ignoring case, or -1.
+     */
+    int find(String key) {
+      int match = -1;
+      for(int slot = hash(key) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+        if(keys[slot].equals(key)) return slot;
+        if(match < 0 && keys[slot].equalsIgnoreCase(key)) match = slot;
+      }
+      return match;
+    }
+
+    /**
+     * Hashes the characters of a key the same way {@link String#equalsIgnoreCase(String)} compares them.
+     */
+    private static int hash(String key) {
+      int hash = 0;
+      for(int i = 0; i < key.length(); i++) {
+        hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(key.charAt(i)));
+      }
+      return hash ^ (hash >>> 16);
+    }
+  }
+
+  private static final class Node {
+    private final String key;
+    private final int priority;
+    private ConfigSection value;
+
+    private Node left;
+    private Node right;
+    private Node parent;
+    private int size = 1;
+
+    Node(String key, ConfigSection value, int priority) {
+      this.key = key;
+      this.value = value;
+      this.priority = priority;
+    }
+  }
+}
@@ -5,15 +5,26 @@ import com.hellyard.cuttlefish.composer.yaml.YamlComposer;
 import com.hellyard.cuttlefish.grammar.yaml.YamlNode;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
 import java.io.Reader;
-import java.nio.charset.StandardCharsets;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by creatorfromhell.
@@ -27,8 +38,40 @@ import java.util.List;
 public class CommentedConfiguration extends ConfigSection {
 
   private File realFile = null;
+  private Path source = null;
+  private Path defaultsSource = null;
   private Reader file = null;
   private Reader defaults = null;
+  private String defaultsText = null;
+  private SharedDefaults sharedDefaults = null;
+  private List<String> addedDefaults = Collections.emptyList();
+
+  /**
+   * The nodes that weren't copied over from the defaults by the last load, which reloads merge the defaults
+   * with again, or null if the last load didn't copy defaults.
+   */
+  private volatile List<String> mergeIgnore = null;
+
+  /**
+   * The prefix of the temporary files that saves are written to, which also keeps the prefix long enough for
+   * {@link File#createTempFile(String, String, File)} when the file name is shorter than three characters.
+   */
+  static final String TEMP_PREFIX = ".tnc-";
+
+  private final AtomicLong tracker = new AtomicLong();
+  private volatile long savedModifications = -1;
+  private volatile Exception saveFailure = null;
+  private final Object saveLock = new Object();
+
+  private volatile WriteBehindSaver saver = null;
+
+  private final List<ListenerRegistration> listeners = new CopyOnWriteArrayList<>();
+  private final List<Runnable> reloadListeners = new CopyOnWriteArrayList<>();
+  private ConfigWatcher watcher = null;
+  private volatile long diskModified = -1;
+  private volatile long diskLength = -1;
+  private boolean snapshots = false;
+  private boolean lazy = false;
 
   /**
    * Constructor for {@link CommentedConfiguration}.
@@ -46,17 +89,30 @@ public class CommentedConfiguration extends ConfigSection {
    * @param debug Whether or not to enter debug mode.
    */
   public CommentedConfiguration(final File file, final File defaults, boolean debug) {
-    super(null);
-    this.realFile = file;
-    try {
-      this.file = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
-    } catch(FileNotFoundException ignore) { }
-    if(defaults != null) {
-      try {
-        this.defaults = new FileReader(defaults);
-      } catch(FileNotFoundException ignore) { }
-    }
+    this(file.toPath(), (defaults == null)? null : defaults.toPath(), debug);
+  }
+
+  /**
+   * Constructor for {@link CommentedConfiguration}.
+   * @param file The file that will be our final configuration file.
+   * @param defaults The file that contains our default configurations.
+   */
+  public CommentedConfiguration(final Path file, final Path defaults) {
+    this(file, defaults, false);
+  }
 
+  /**
+   * Constructor for {@link CommentedConfiguration}. Neither file is opened until the configuration is loaded.
+   * @param file The file that will be our final configuration file.
+   * @param defaults The file that contains our default configurations.
+   * @param debug Whether or not to enter debug mode.
+   */
+  public CommentedConfiguration(final Path file, final Path defaults, boolean debug) {
+    super(null);
+    trackModifications(tracker);
+    this.realFile = file.toFile();
+    this.source = file;
+    this.defaultsSource = defaults;
     this.debug = debug;
   }
 
@@ -77,17 +133,10 @@ public class CommentedConfiguration extends ConfigSection {
    */
   public CommentedConfiguration(final File file, Reader defaults, boolean debug) {
     super(null);
-
-    //System.out.println("Constructor");
+    trackModifications(tracker);
     this.realFile = file;
-    //System.out.println("Constructor1");
-    try {
-      //System.out.println("Constructor2");
-      this.file = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
-    } catch(FileNotFoundException ignore) { }
-    //System.out.println("Constructor3");
+    this.source = file.toPath();
     this.defaults = defaults;
-    //System.out.println("Constructor4");
     this.debug = debug;
   }
 
@@ -108,6 +157,7 @@ public class CommentedConfiguration extends ConfigSection {
    */
   public CommentedConfiguration(Reader file, Reader defaults, boolean debug) {
     super(null);
+    trackModifications(tracker);
     this.file = file;
     this.defaults = defaults;
     this.debug = debug;
@@ -119,6 +169,8 @@ public class CommentedConfiguration extends ConfigSection {
 
   /**
    * Loads our configurations, reading the defaults file if needed.
+   * @throws UncheckedIOException If our file or the defaults file couldn't be read, in which case our file is
+   *                              left untouched.
    */
   public void load() {
 
@@ -126,32 +178,92 @@ public class CommentedConfiguration extends ConfigSection {
     load(true);
   }
 
+  /**
+   * Decodes the specified {@link YamlNode nodes} into {@link ConfigSection sections}. The new sections are built
+   * on a private copy of the top-level children, which is then published in a single step, so readers on
+   * other threads see either the previous tree or the complete new one.
+   * @param nodes The {@link YamlNode nodes} to decode, with every parent node preceding its children.
+   */
   protected void decodeNodes(LinkedList<YamlNode> nodes) {
+    publish(decode(children().copy(), nodes, lazy));
+  }
+
+  static ChildMap decode(ChildMap staged, LinkedList<YamlNode> nodes) {
+    return decode(staged, nodes, false);
+  }
+
+  /**
+   * Decodes the specified {@link YamlNode nodes} into the specified top-level children. A node whose parent
+   * node is missing is skipped, whether it's decoded here or once its top-level section is first needed.
+   * @param staged The top-level children to decode into, which must not be published yet.
+   * @param nodes The {@link YamlNode nodes} to decode, with every parent node preceding its children.
+   * @param lazy Whether to only decode the top-level sections, and leave the nodes below each of them to be
+   *             decoded once they're first needed.
+   * @return The top-level children.
+   */
+  static ChildMap decode(ChildMap staged, LinkedList<YamlNode> nodes, boolean lazy) {
+    final long start = ConfigMetrics.start();
+    if(lazy) {
+      for(YamlNode node : nodes) {
+        final String path = node.getNode();
+        final int split = path.indexOf('.');
+        if(split < 0) {
+          ConfigSection.compactValues(node);
+          staged.put(path.intern(), new ConfigSection(node));
+        } else {
+          final ConfigSection top = staged.get(path.substring(0, split));
+          if(top != null) top.defer(node);
+        }
+      }
+      ConfigMetrics.finish(ConfigMetrics.Phase.DECODE, start);
+      return staged;
+    }
 
     for(YamlNode node : nodes) {
+      ConfigSection.compactValues(node);
 
       ConfigSection finished = new ConfigSection(node);
       final String[] split = node.getNode().split("\\.");
 
-      ConfigSection parent = this;
-
       if(split.length > 1) {
-        for(int i = 0; i < split.length; i++) {
-
-          if(i == (split.length - 1)) {
-            parent.children.put(split[i], finished);
-          } else {
-            parent = parent.getSection(split[i]);
-          }
+        ConfigSection parent = staged.get(split[0]);
+        for(int i = 1; i < split.length - 1 && parent != null; i++) {
+          parent = parent.children().get(split[i]);
         }
+        if(parent != null) parent.putBuilt(split[split.length - 1].intern(), finished);
       } else {
-        children.put(node.getNode(), finished);
+        staged.put(node.getNode().intern(), finished);
       }
     }
+    ConfigMetrics.finish(ConfigMetrics.Phase.DECODE, start);
+    return staged;
+  }
+
+  /**
+   * Publishes a fully built set of top-level children in a single step.
+   * @param staged The new top-level children.
+   */
+  private void publish(ChildMap staged) {
+    final ConfigSection shared = (sharedDefaults == null)? null : sharedDefaults.getRoot();
+    final boolean ignoreCase = isCaseInsensitive();
+    for(Map.Entry<String, ConfigSection> entry : staged.entrySet()) {
+      final ConfigSection section = entry.getValue();
+      if(section.isFrozen()) continue;
+
+      section.attachTree(tree());
+      section.foldKeys(ignoreCase);
+      section.attachFallback((shared == null)? null : lookup(shared.children(), entry.getKey()));
+    }
+    if(shared != null) shareDefaults(staged);
+    children = staged;
+    fallback = shared;
+    structureChanged();
   }
 
   /**
    * Loads our configurations, copying over defaults that are not present in our file if needed.
+   * @throws UncheckedIOException If our file or the defaults file couldn't be read, in which case our file is
+   *                              left untouched.
    */
   public void load(boolean copyDefaults) {
 
@@ -160,74 +272,511 @@ public class CommentedConfiguration extends ConfigSection {
   }
 
   public void load(boolean copyDefaults, List<String> ignore) {
-    Reader load = file;
-
-    //System.out.println("Preparing loader");
-
-    final LinkedList<YamlNode> loaded = (file == null)? new LinkedList<>() : (LinkedList<YamlNode>)new CuttlefishBuilder(load, "yaml").build().getNodes();
+    load((copyDefaults)? parseDefaults() : null, ignore);
+  }
 
-    //System.out.println("Loaded");
+  /**
+   * Loads our configurations on top of {@link SharedDefaults shared defaults}. Instead of copying the defaults
+   * that are missing from our file, lookups fall back to the shared tree, and nodes of our file that are identical
+   * to their default are replaced by the shared ones, so this configuration only holds the nodes that differ.
+   * Defaults missing from our file don't cause it to be saved, but are written whenever it's saved.
+   * @param defaults The {@link SharedDefaults shared defaults} to fall back to.
+   * @throws UncheckedIOException If our file couldn't be read, in which case it's left untouched.
+   */
+  public void load(SharedDefaults defaults) {
+    addedDefaults = Collections.emptyList();
+    sharedDefaults = defaults;
+    mergeIgnore = null;
+    decodeNodes(parseFile());
+    saveLoaded();
+  }
 
-    if(copyDefaults && defaults != null) {
+  private void load(LinkedList<YamlNode> defaultNodes, List<String> ignore) {
+    addedDefaults = Collections.emptyList();
+    sharedDefaults = null;
+    mergeIgnore = (defaultNodes == null)? null : new ArrayList<>(ignore);
 
-      //System.out.println("file == null?: " + (file == null));
-      //System.out.println("Loaded: " + loaded.size());
+    final LinkedList<YamlNode> loaded = parseFile();
 
-      if(file == null || loaded.size() == 0) {
+    if(defaultNodes != null) {
 
-        //System.out.println("wut major");
-        LinkedList<YamlNode> copied = new LinkedList<>();
-        final CommentedConfiguration defaultConfig = new CommentedConfiguration(defaults, null);
-        defaultConfig.load(false);
-        System.out.println("copied: " + copied.size());
+      final DefaultsMerge merge = DefaultsMerge.merge(loaded, defaultNodes, ignore);
 
-        for(YamlNode yamlNode : defaultConfig.getNodeValues()) {
-          System.out.println("Node: " + yamlNode.getNode());
-          if(!loaded.contains(yamlNode)) {
-            //System.out.println("wut");
-            if(!ignored(ignore, yamlNode.getNode())) {
-              //System.out.println("wut2");
-              copied.add(yamlNode);
-            }
-          } else {
-            //System.out.println("wut3");
-            copied.add(loaded.get(loaded.indexOf(yamlNode)));
-          }
-        }
-        decodeNodes(copied);
-      } else {
-        System.out.println("loaded: ");
-        decodeNodes(loaded);
-      }
+      addedDefaults = merge.getAdded();
+      decodeNodes(merge.getMerged());
     } else {
-      System.out.println("loaded: ");
       decodeNodes(loaded);
     }
+    saveLoaded();
+  }
+
+  /**
+   * Saves our file after a load if it doesn't exist yet or defaults were added to it, otherwise marks the
+   * loaded state as saved.
+   */
+  private void saveLoaded() {
     if(realFile != null) {
-      save(realFile);
+      if(realFile.exists() && addedDefaults.isEmpty()) {
+        savedModifications = getModificationCount();
+        stampDisk();
+      } else {
+        save(realFile);
+      }
+    }
+  }
+
+  private LinkedList<YamlNode> parseFile() {
+    if(file != null) {
+      return parse(file);
+    }
+    if(source == null || !Files.exists(source)) return new LinkedList<>();
+
+    if(snapshots) {
+      final LinkedList<YamlNode> nodes = ConfigSnapshot.load(realFile);
+      if(nodes != null) return nodes;
+    }
+
+    return parse(source);
+  }
+
+  /**
+   * Parses the nodes of the defaults. Defaults given as a {@link Reader} are read into memory the first time,
+   * so they can be merged again on each {@link #reload() reload}.
+   */
+  private LinkedList<YamlNode> parseDefaults() {
+    if(defaults != null) {
+      defaultsText = read(defaults);
+      defaults = null;
+    }
+    if(defaultsText != null) {
+      return parse(new StringReader(defaultsText));
+    }
+    if(defaultsSource == null || !Files.exists(defaultsSource)) return null;
+
+    return parse(defaultsSource);
+  }
+
+  /**
+   * Parses the nodes of the specified file. A file that can't be read is reported rather than treated as empty,
+   * since every default would then look missing and the file would be saved over.
+   * @param path The file to parse.
+   * @return The parsed nodes.
+   * @throws UncheckedIOException If the file couldn't be read.
+   */
+  private static LinkedList<YamlNode> parse(Path path) {
+    try {
+      return parse(ConfigInput.open(path));
+    } catch(IOException e) {
+      throw new UncheckedIOException("Unable to read configuration file " + path, e);
+    }
+  }
+
+  private static String read(Reader reader) {
+    final StringBuilder builder = new StringBuilder();
+    final char[] buffer = new char[8192];
+    try {
+      int read;
+      while((read = reader.read(buffer)) != -1) {
+        builder.append(buffer, 0, read);
+      }
+    } catch(IOException e) {
+      throw new UncheckedIOException("Unable to read the default configurations", e);
+    } finally {
+      try {
+        reader.close();
+      } catch(Exception ignore) { }
     }
+    return builder.toString();
   }
 
-  private boolean ignored(List<String> ignore, String node) {
-    for(String str : ignore) {
-      if(node.contains(str) || node.equalsIgnoreCase(str)) return true;
+  /**
+   * Parses the nodes from the specified {@link Reader}, closing it afterwards.
+   * @param reader The {@link Reader} to parse.
+   * @return The parsed nodes.
+   */
+  static LinkedList<YamlNode> parse(Reader reader) {
+    final long start = ConfigMetrics.start();
+    try {
+      return (LinkedList<YamlNode>)new CuttlefishBuilder(reader, "yaml").build().getNodes();
+    } finally {
+      ConfigMetrics.finish(ConfigMetrics.Phase.PARSE, start);
+      try {
+        reader.close();
+      } catch(Exception ignore) { }
     }
-    return false;
   }
 
   /**
-   * Used to save our configuration file.
+   * Used to enable or disable the binary {@link ConfigSnapshot snapshot} of our file. When enabled, loading reads
+   * the parsed nodes from the snapshot while it still matches our file, and writes a new snapshot otherwise.
+   * @param snapshots Whether to use a snapshot when loading.
+   */
+  public void setSnapshots(boolean snapshots) {
+    this.snapshots = snapshots;
+  }
+
+  /**
+   * Used to enable or disable lazy loading. When enabled, loading only builds the top-level
+   * {@link ConfigSection sections}, and the nodes below each section are decoded level by level the first time
+   * that section's children are needed, i.e. by {@link #getSection(String) getSection} or
+   * {@link #getKeys(boolean) getKeys}. This suits large files of which only a few sections are read. Takes
+   * effect on the next load or reload.
+   * @param lazy Whether to load lazily.
+   */
+  public void setLazy(boolean lazy) {
+    this.lazy = lazy;
+  }
+
+  /**
+   * Returns the paths of the default nodes that were missing from our file, and copied over, during the last
+   * {@link #load(boolean, List) load}.
+   * @return An unmodifiable list of the copied default paths.
+   */
+  public List<String> getAddedDefaults() {
+    return addedDefaults;
+  }
+
+  /**
+   * Used to check if our configuration has been modified since it was last loaded or saved to our file.
+   * @return True if there are unsaved modifications, otherwise false.
+   */
+  public boolean isDirty() {
+    return getModificationCount() != savedModifications;
+  }
+
+  /**
+   * Returns why the last write of this configuration failed, i.e. the {@link java.io.IOException} thrown while
+   * writing it, so callers that get false from a save can report the cause.
+   * @return The failure of the last write, or null if it succeeded.
+   */
+  public Exception getSaveFailure() {
+    return saveFailure;
+  }
+
+  /**
+   * Used to save our configuration to our file, if it has unsaved modifications.
+   * @return True if saved or already up to date, otherwise false, in which case
+   * {@link #getSaveFailure()} returns the cause.
+   */
+  public boolean save() {
+    return realFile != null && save(realFile);
+  }
+
+  /**
+   * Used to save our configuration file. Saving to our own file is skipped when there are no unsaved
+   * modifications, and only schedules a write when {@link #enableWriteBehind(long, TimeUnit) write-behind} is
+   * enabled. The configuration is written to a temporary file next to the target, which is forced to disk and
+   * then renamed over the target, so a crash mid-save never leaves a truncated file behind.
    * @param file The file to save our configuration to.
-   * @return True if saved, otherwise false.
+   * @return True if saved or scheduled, otherwise false.
    */
   public boolean save(File file) {
-    if(!file.exists()) {
+    final WriteBehindSaver behind = saver;
+    if(behind != null && file.equals(realFile)) {
+      behind.request();
+      return true;
+    }
+    return saveTo(file);
+  }
+
+  /**
+   * Used to save our configuration to our file without blocking the calling thread when write-behind is enabled.
+   * @return A future that completes with the result of the save once it's on disk.
+   */
+  public CompletableFuture<Boolean> saveAsync() {
+    final WriteBehindSaver behind = saver;
+    if(behind != null) return behind.request();
+
+    return CompletableFuture.completedFuture(save());
+  }
+
+  /**
+   * Used to write any pending modifications to our file on the calling thread, i.e. during shutdown.
+   * @return True if our file is up to date, otherwise false.
+   */
+  public boolean flush() {
+    final WriteBehindSaver behind = saver;
+    if(behind != null) return behind.flush();
+
+    return save();
+  }
+
+  /**
+   * Enables write-behind saving on the shared background thread. Calls to {@link #save(File)} for our file are
+   * then coalesced into at most one write per interval.
+   * @param interval The minimum time between two writes.
+   * @param unit The {@link TimeUnit unit} of the interval.
+   * @return The {@link WriteBehindSaver saver} now used by this configuration.
+   */
+  public WriteBehindSaver enableWriteBehind(long interval, TimeUnit unit) {
+    return enableWriteBehind(WriteBehindSaver.sharedExecutor(), interval, unit);
+  }
+
+  /**
+   * Enables write-behind saving on the specified executor. Calls to {@link #save(File)} for our file are then
+   * coalesced into at most one write per interval.
+   * @param executor The executor to perform the writes on.
+   * @param interval The minimum time between two writes.
+   * @param unit The {@link TimeUnit unit} of the interval.
+   * @return The {@link WriteBehindSaver saver} now used by this configuration.
+   */
+  public WriteBehindSaver enableWriteBehind(ScheduledExecutorService executor, long interval, TimeUnit unit) {
+    if(realFile == null) throw new IllegalStateException("Write-behind saving requires a configuration file.");
+
+    final WriteBehindSaver behind = new WriteBehindSaver(this, executor, interval, unit);
+    final WriteBehindSaver previous = saver;
+    saver = behind;
+    if(previous != null) previous.flush();
+    return behind;
+  }
+
+  /**
+   * Disables write-behind saving, writing any pending modifications first.
+   * @return True if our file is up to date, otherwise false.
+   */
+  public boolean disableWriteBehind() {
+    final WriteBehindSaver behind = saver;
+    saver = null;
+    return behind == null || behind.flush();
+  }
+
+  /**
+   * Saves our configuration to our file right away, if it has unsaved modifications.
+   * @return True if saved or already up to date, otherwise false.
+   */
+  boolean saveNow() {
+    return realFile != null && saveTo(realFile);
+  }
+
+  private boolean saveTo(File file) {
+    synchronized(saveLock) {
+      final long modifications = getModificationCount();
+      final boolean real = file.equals(realFile);
+      if(real && modifications == savedModifications && file.exists()) return true;
+
+      if(!write(file)) return false;
+
+      if(real) {
+        savedModifications = modifications;
+        stampDisk();
+      }
+      return true;
+    }
+  }
+
+  private void stampDisk() {
+    diskModified = realFile.lastModified();
+    diskLength = realFile.length();
+  }
+
+  /**
+   * Used to register a listener that is notified of nodes added, removed or changed by a {@link #reload() reload}.
+   * @param pattern The dotted pattern of the nodes to listen to, where a "*" segment matches any single segment
+   *                and a "**" segment matches any amount of segments, i.e. "Core.Server.*".
+   * @param listener The {@link ConfigChangeListener listener} to notify.
+   */
+  public void onChange(String pattern, ConfigChangeListener listener) {
+    listeners.add(new ListenerRegistration(pattern.split("\\."), listener));
+  }
+
+  /**
+   * Used to unregister a {@link ConfigChangeListener listener} from every pattern it was registered with.
+   * @param listener The {@link ConfigChangeListener listener} to remove.
+   */
+  public void removeChangeListener(ConfigChangeListener listener) {
+    listeners.removeIf(registration -> registration.listener == listener);
+  }
+
+  /**
+   * Used to register a listener that is run once after each {@link #reload() reload} that changed any nodes,
+   * before the {@link ConfigChangeListener change listeners} are notified.
+   * @param listener The listener to run.
+   */
+  public void onReload(Runnable listener) {
+    reloadListeners.add(listener);
+  }
+
+  /**
+   * Used to unregister a listener registered through {@link #onReload(Runnable)}.
+   * @param listener The listener to remove.
+   */
+  public void removeReloadListener(Runnable listener) {
+    reloadListeners.remove(listener);
+  }
+
+  /**
+   * Starts watching our file, reloading it whenever it's changed by something other than this configuration.
+   * @param debounce The time the file must go without changes before it's reloaded.
+   * @param unit The {@link TimeUnit unit} of the debounce period.
+   * @return True if our file is being watched, otherwise false.
+   */
+  public boolean watch(long debounce, TimeUnit unit) {
+    if(realFile == null) return false;
+
+    synchronized(saveLock) {
+      if(watcher != null) return true;
       try {
-        file.createNewFile();
+        watcher = new ConfigWatcher(this, debounce, unit);
+        return true;
       } catch(Exception ignore) {
         return false;
       }
     }
-    return new YamlComposer().compose(file, getNodeValues());
+  }
+
+  /**
+   * Stops watching our file.
+   */
+  public void unwatch() {
+    synchronized(saveLock) {
+      if(watcher != null) {
+        watcher.close();
+        watcher = null;
+      }
+    }
+  }
+
+  /**
+   * Reloads our configuration from our file. The file is parsed on the calling thread and the new tree replaces
+   * the current one in a single step, so {@link ConfigSection sections} obtained before the reload are no longer
+   * part of this configuration afterwards, and unsaved modifications are discarded. Listeners registered through
+   * {@link #onChange(String, ConfigChangeListener)} are notified of the affected nodes.
+   *
+   * Defaults are applied the same way as by the last load. If it copied defaults over, those missing from the
+   * reloaded file are merged in again, and left unsaved until the next save rather than written during the
+   * reload.
+   *
+   * The file is read the same way as by a load, including its {@link #setSnapshots(boolean) snapshot}.
+   * @return The nodes that were added, removed or changed by the reload.
+   * @throws UncheckedIOException If our file or the defaults couldn't be read, in which case the current tree
+   * is kept.
+   */
+  public List<ConfigChange> reload() {
+    if(realFile == null || !realFile.exists()) return Collections.emptyList();
+
+    final long modified = realFile.lastModified();
+    final long length = realFile.length();
+
+    final List<String> ignored = mergeIgnore;
+    LinkedList<YamlNode> nodes = parseFile();
+    List<String> added = Collections.emptyList();
+    if(ignored != null) {
+      final LinkedList<YamlNode> defaultNodes = parseDefaults();
+      if(defaultNodes != null) {
+        final DefaultsMerge merge = DefaultsMerge.merge(nodes, defaultNodes, ignored);
+        nodes = merge.getMerged();
+        added = merge.getAdded();
+      }
+    }
+
+    final ChildMap previous;
+    final ChildMap updated = decode(new ChildMap(), nodes, lazy);
+    synchronized(saveLock) {
+      synchronized(this) {
+        previous = children;
+        publish(updated);
+      }
+      addedDefaults = added;
+      savedModifications = (added.isEmpty())? getModificationCount() : -1;
+      diskModified = modified;
+      diskLength = length;
+    }
+
+    final List<ConfigChange> changes = new ArrayList<>();
+    ConfigChange.diff("", previous, updated, changes);
+    if(!changes.isEmpty()) {
+      for(Runnable listener : reloadListeners) {
+        try {
+          listener.run();
+        } catch(Exception ignore) { }
+      }
+    }
+    notifyListeners(changes);
+    return changes;
+  }
+
+  /**
+   * Reloads our configuration if our file has changed since we last loaded, reloaded or saved it.
+   */
+  void reloadIfChanged() {
+    if(realFile.lastModified() == diskModified && realFile.length() == diskLength) return;
+    reload();
+  }
+
+  private void notifyListeners(List<ConfigChange> changes) {
+    if(listeners.isEmpty()) return;
+
+    for(ConfigChange change : changes) {
+      final String[] path = change.getPath().split("\\.");
+
+      for(ListenerRegistration registration : listeners) {
+        if(!ConfigChange.matches(registration.pattern, path)) continue;
+        try {
+          registration.listener.changed(this, change);
+        } catch(Exception ignore) { }
+      }
+    }
+  }
+
+  /**
+   * Moves a fully written temporary file over the specified target, atomically where the file system supports
+   * it, and then forces the directory to disk, so the new entry survives a crash along with the data.
+   * @param temp The temporary file, which must be in the same directory as the target.
+   * @param target The file to replace.
+   * @throws IOException If the file couldn't be moved.
+   */
+  static void replace(Path temp, Path target) throws IOException {
+    try {
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch(AtomicMoveNotSupportedException ignore) {
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    final Path directory = target.getParent();
+    if(directory == null) return;
+    try(FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch(Exception ignore) {
+      //Not every platform can open a directory, i.e. Windows, which doesn't need it.
+    }
+  }
+
+  private boolean write(File file) {
+    final File target = file.getAbsoluteFile();
+    File temp = null;
+    try {
+      temp = File.createTempFile(TEMP_PREFIX + target.getName(), ".tmp", target.getParentFile());
+      final long start = ConfigMetrics.start();
+      final boolean composed = new YamlComposer().compose(temp, getNodeValues());
+      ConfigMetrics.finish(ConfigMetrics.Phase.COMPOSE, start);
+      if(!composed) {
+        saveFailure = new IOException("Unable to compose configuration file " + target);
+        return false;
+      }
+      if(ConfigMetrics.enabled) ConfigMetrics.written(temp.length());
+
+      try(FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+        channel.force(true);
+      }
+
+      replace(temp.toPath(), target.toPath());
+      saveFailure = null;
+      return true;
+    } catch(Exception e) {
+      saveFailure = e;
+      return false;
+    } finally {
+      if(temp != null && temp.exists()) temp.delete();
+    }
+  }
+
+  private static final class ListenerRegistration {
+    private final String[] pattern;
+    private final ConfigChangeListener listener;
+
+    ListenerRegistration(String[] pattern, ConfigChangeListener listener) {
+      this.pattern = pattern;
+      this.listener = listener;
+    }
   }
 }
\ No newline at end of file
@@ -0,0 +1,263 @@
+package net.tnemc.config;
+
+import com.hellyard.cuttlefish.grammar.yaml.YamlValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Collects changes to a {@link ConfigSection} and its descendants, which are published together once the batch
+ * is committed. Obtained through {@link ConfigSection#batch(java.util.function.Consumer)}. Paths are relative to
+ * the section the batch was started on, and later changes see the effects of earlier ones.
+ */
+public final class ConfigBatch {
+
+  private final ConfigSection root;
+
+  /**
+   * The staged copies of the children of every section changed by this batch, in the order they were first
+   * changed, so parents precede the sections created beneath them.
+   */
+  private final Map<ConfigSection, ChildMap> staged = new LinkedHashMap<>();
+  private final Map<ConfigSection, StagedValues> values = new LinkedHashMap<>();
+
+  /**
+   * The sections created by this batch, which aren't reachable until it's committed.
+   */
+  private final Set<ConfigSection> created = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  private boolean committed = false;
+
+  ConfigBatch(ConfigSection root) {
+    this.root = root;
+  }
+
+  public ConfigBatch set(String node, String... values) {
+    return set(node.split("\\."), toValues(values));
+  }
+
+  public ConfigBatch set(String node, YamlValue... values) {
+    return set(node.split("\\."), new ArrayList<>(Arrays.asList(values)));
+  }
+
+  public ConfigBatch set(ConfigPath path, String... values) {
+    return set(path.segments(), toValues(values));
+  }
+
+  public ConfigBatch set(ConfigPath path, YamlValue... values) {
+    return set(path.segments(), new ArrayList<>(Arrays.asList(values)));
+  }
+
+  public ConfigBatch setOrCreate(String node, String... values) {
+    return setOrCreate(node.split("\\."), -1, toValues(values));
+  }
+
+  public ConfigBatch setOrCreate(String node, YamlValue... values) {
+    return setOrCreate(node.split("\\."), -1, new ArrayList<>(Arrays.asList(values)));
+  }
+
+  public ConfigBatch setOrCreate(ConfigPath path, String... values) {
+    return setOrCreate(path.segments(), -1, toValues(values));
+  }
+
+  public ConfigBatch setOrCreate(ConfigPath path, YamlValue... values) {
+    return setOrCreate(path.segments(), -1, new ArrayList<>(Arrays.asList(values)));
+  }
+
+  public ConfigBatch setOrCreate(String node, int index, String... values) {
+    return setOrCreate(node.split("\\."), index, toValues(values));
+  }
+
+  public ConfigBatch setOrCreate(String node, int index, YamlValue... values) {
+    return setOrCreate(node.split("\\."), index, new ArrayList<>(Arrays.asList(values)));
+  }
+
+  /**
+   * Removes the {@link ConfigSection section} at the specified path.
+   * @param node The path of the section to remove.
+   * @return This batch.
+   */
+  public ConfigBatch remove(String node) {
+    checkOpen();
+    root.remove(node.split("\\."), this);
+    return this;
+  }
+
+  /**
+   * Moves the {@link ConfigSection section} at the specified path to another position among its siblings.
+   * @param node The path of the section to move.
+   * @param index The new index of the section, which is clamped to its siblings.
+   * @return This batch.
+   */
+  public ConfigBatch move(String node, int index) {
+    checkOpen();
+    root.move(node.split("\\."), index, this);
+    return this;
+  }
+
+  private ConfigBatch set(String[] segments, List<YamlValue> values) {
+    checkOpen();
+    ConfigSection parent = null;
+    String key = null;
+    ConfigSection section = root;
+    for(int i = 0; i < segments.length && section != null; i++) {
+      final ChildMap children = section.children(this);
+      parent = section;
+      key = section.keyIn(children, segments[i]);
+      section = (key == null)? null : children.get(key);
+    }
+
+    if(section == null || section.isFrozen()) {
+      final String node = String.join(".", segments);
+      if(root.getSection(node) == null) {
+        throw new IllegalArgumentException("No node exists at " + node + ".");
+      }
+      //The node belongs to the shared defaults, so copy it into the tree first.
+      root.createPath(segments, -1, values, this);
+      return this;
+    }
+    stageValues(parent, key, section, values);
+    return this;
+  }
+
+  private ConfigBatch setOrCreate(String[] segments, int index, List<YamlValue> values) {
+    checkOpen();
+    root.createPath(segments, index, values, this);
+    return this;
+  }
+
+  /**
+   * Returns the children of the specified section as seen by this batch.
+   */
+  ChildMap children(ConfigSection section) {
+    final ChildMap copy = staged.get(section);
+    return (copy == null)? section.children() : copy;
+  }
+
+  /**
+   * Returns the staged children of the specified section, copying its published children on first use.
+   */
+  ChildMap writable(ConfigSection section) {
+    return staged.computeIfAbsent(section, key->key.children().copy());
+  }
+
+  /**
+   * Used to signal that the specified section was created by this batch.
+   */
+  void created(ConfigSection section) {
+    created.add(section);
+  }
+
+  /**
+   * Stages new values for the specified section. Sections created by this batch receive them right away, since
+   * they aren't reachable yet.
+   * @param parent The parent of the section.
+   * @param key The key of the section within its parent.
+   * @param section The section.
+   * @param values The new values.
+   */
+  void stageValues(ConfigSection parent, String key, ConfigSection section, List<YamlValue> values) {
+    if(created.contains(section)) {
+      section.assignValues(values);
+      return;
+    }
+    this.values.put(section, new StagedValues(parent, key, values));
+  }
+
+  /**
+   * Publishes every staged change, so that each section's children, and the values of those children, change
+   * in a single step.
+   *
+   * Sections whose values changed are replaced by copies holding the new values in the staged children of their
+   * parents, and take over their own staged children. The copies and the sections created by this batch aren't
+   * reachable yet, so their children are assigned directly. The staged children of every other section are then
+   * published from the most recently changed section backwards.
+   */
+  void commit() {
+    checkOpen();
+    committed = true;
+    if(staged.isEmpty() && values.isEmpty()) return;
+
+    final Map<ConfigSection, ConfigSection> copies = new IdentityHashMap<>();
+    for(Map.Entry<ConfigSection, StagedValues> entry : values.entrySet()) {
+      copies.put(entry.getKey(), entry.getKey().copyWithValues(entry.getValue().values));
+    }
+    for(Map.Entry<ConfigSection, StagedValues> entry : values.entrySet()) {
+      final StagedValues staging = entry.getValue();
+      final ChildMap siblings = writable(staging.parent);
+      //Sections removed or replaced later in this batch stay that way.
+      if(siblings.get(staging.key) != entry.getKey()) continue;
+
+      final ConfigSection copy = copies.get(entry.getKey());
+      final ConfigTree tree = staging.parent.tree();
+      if(tree != null) tree.added(staging.parent, staging.key, copy);
+      siblings.put(staging.key, copy);
+    }
+    for(Map.Entry<ConfigSection, ConfigSection> entry : copies.entrySet()) {
+      final ChildMap children = staged.remove(entry.getKey());
+      if(children != null) entry.getValue().children = children;
+    }
+
+    final List<Map.Entry<ConfigSection, ChildMap>> entries = new ArrayList<>(staged.size());
+    for(Map.Entry<ConfigSection, ChildMap> entry : staged.entrySet()) {
+      if(created.contains(entry.getKey())) {
+        entry.getKey().children = entry.getValue();
+      } else {
+        entries.add(entry);
+      }
+    }
+
+    for(int i = entries.size() - 1; i >= 0; i--) {
+      final ConfigSection section = entries.get(i).getKey();
+      synchronized(section) {
+        section.children = entries.get(i).getValue();
+      }
+    }
+
+    for(Map.Entry<ConfigSection, ChildMap> entry : entries) {
+      entry.getKey().structureChanged();
+    }
+    root.modified();
+  }
+
+  private void checkOpen() {
+    if(committed) throw new IllegalStateException("This batch has already been committed.");
+  }
+
+  /**
+   * The values staged for a section that was published before this batch, along with where it's published.
+   */
+  private static final class StagedValues {
+    private final ConfigSection parent;
+    private final String key;
+    private final List<YamlValue> values;
+
+    StagedValues(ConfigSection parent, String key, List<YamlValue> values) {
+      this.parent = parent;
+      this.key = key;
+      this.values = values;
+    }
+  }
+
+  private static List<YamlValue> toValues(String... values) {
+    final List<YamlValue> valuesList = new ArrayList<>(values.length);
+    for(String value : values) {
+      valuesList.add(new YamlValue(new ArrayList<>(), value, "String"));
+    }
+    return valuesList;
+  }
+}
@@ -0,0 +1,413 @@
+package net.tnemc.config;
+
+import com.hellyard.cuttlefish.grammar.yaml.YamlValue;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Binds the {@link ConfigKey annotated} methods of an interface, or fields of a class, onto the nodes of a
+ * {@link ConfigSection}. Every node is looked up and parsed once when binding, and every missing or ill-typed
+ * node is reported at that point, so reading a bound value afterwards involves no lookup or parsing.
+ *
+ * Interfaces are implemented by a proxy that returns the bound values, which are replaced all at once on a
+ * rebind. Bound interfaces can't declare default methods. Classes need a constructor without parameters, and
+ * their fields are assigned through {@link MethodHandle method handles}; each rebind assigns them on a new
+ * instance, which replaces the one returned by {@link #get()} once every field is assigned. A binding of a
+ * {@link CommentedConfiguration} is rebound after each {@link CommentedConfiguration#reload() reload}; a reload
+ * that leaves the bound nodes invalid keeps the previous values.
+ *
+ * Supported types are String, the primitive types and their wrappers, BigDecimal, enums and lists of strings.
+ * Members of any other collection type, or of a list of anything but strings, are rejected when binding.
+ *
+ * Reading a method of a bound interface still goes through the proxy, which finds the value of the method in an
+ * identity map and unboxes primitive values. Bind a class instead where values are read often, since its fields
+ * are read directly.
+ *
+ * Rebinds after a reload that fail are logged through {@link Logger java.util.logging}, and the previous values
+ * are kept.
+ * @param <T> The bound type.
+ */
+public final class ConfigBinding<T> {
+
+  private static final Logger LOGGER = Logger.getLogger(ConfigBinding.class.getName());
+
+  /**
+   * Returned by {@link #read(ConfigSection, Class, ValueParser)} for values that can't be parsed as their type.
+   */
+  private static final Object INVALID = new Object();
+
+  private final Class<T> type;
+  private final ConfigSection section;
+  private final List<Member> members;
+  private final ProxyHandler handler;
+  private final MethodHandle constructor;
+  private final Runnable rebinder = this::rebindQuietly;
+
+  /**
+   * The bound instance. For classes, this is replaced by a fully assigned instance on each rebind, so readers
+   * on other threads never see the fields of two binds mixed.
+   */
+  private volatile T instance;
+
+  private ConfigBinding(Class<T> type, ConfigSection section, List<Member> members, T instance,
+                        ProxyHandler handler, MethodHandle constructor) {
+    this.type = type;
+    this.section = section;
+    this.members = members;
+    this.instance = instance;
+    this.handler = handler;
+    this.constructor = constructor;
+  }
+
+  /**
+   * Binds the specified type onto the specified {@link ConfigSection section}.
+   * @param type The interface or class to bind.
+   * @param section The {@link ConfigSection section} the paths are relative to. If this is a
+   *                {@link CommentedConfiguration}, the binding is rebound after each reload until it's
+   *                {@link #close() closed}.
+   * @param <T> The bound type.
+   * @return The binding.
+   * @throws IllegalArgumentException If the type can't be bound, i.e. it's an interface with default methods, or a
+   * member has an unsupported collection type.
+   * @throws IllegalStateException If any required node is missing, or any node can't be parsed as its type.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> ConfigBinding<T> bind(Class<T> type, ConfigSection section) {
+    final ConfigKey prefixKey = type.getAnnotation(ConfigKey.class);
+    final String prefix = (prefixKey == null)? "" : prefixKey.value() + ".";
+
+    final List<Member> members = new ArrayList<>();
+    final T instance;
+    final ProxyHandler handler;
+    final MethodHandle constructor;
+
+    if(type.isInterface()) {
+      final Map<Method, Integer> indexes = new HashMap<>();
+      for(Method method : type.getMethods()) {
+        if(Modifier.isStatic(method.getModifiers())) continue;
+        if(method.isDefault()) {
+          throw new IllegalArgumentException("Method " + method.getName() + " of " + type.getName()
+                                             + " can't be a default method, since proxies can't invoke them.");
+        }
+
+        final ConfigKey key = method.getAnnotation(ConfigKey.class);
+        if(key == null || method.getParameterCount() > 0) {
+          throw new IllegalArgumentException("Method " + method.getName() + " of " + type.getName()
+                                             + " must have no parameters and be annotated with @ConfigKey.");
+        }
+        checkType(type, method.getName(), method.getReturnType(), method.getGenericReturnType());
+        indexes.put(method, members.size());
+        members.add(new Member(method.getName(), ConfigPath.of(prefix + key.value()), key.required(),
+                               method.getReturnType(), null));
+      }
+      handler = new ProxyHandler(type, indexes);
+      instance = (T)Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+      constructor = null;
+    } else {
+      final MethodHandles.Lookup lookup = MethodHandles.lookup();
+      try {
+        for(Field field : type.getDeclaredFields()) {
+          final ConfigKey key = field.getAnnotation(ConfigKey.class);
+          if(key == null) continue;
+          if(Modifier.isFinal(field.getModifiers()) || Modifier.isStatic(field.getModifiers())) {
+            throw new IllegalArgumentException("Field " + field.getName() + " of " + type.getName()
+                                               + " can't be static or final.");
+          }
+
+          checkType(type, field.getName(), field.getType(), field.getGenericType());
+          field.setAccessible(true);
+          members.add(new Member(field.getName(), ConfigPath.of(prefix + key.value()), key.required(),
+                                 field.getType(), lookup.unreflectSetter(field)));
+        }
+
+        final Constructor<T> declared = type.getDeclaredConstructor();
+        declared.setAccessible(true);
+        constructor = lookup.unreflectConstructor(declared);
+      } catch(IllegalArgumentException e) {
+        throw e;
+      } catch(Throwable e) {
+        throw new IllegalArgumentException("Unable to bind " + type.getName() + ".", e);
+      }
+      handler = null;
+      instance = null;
+    }
+
+    final ConfigBinding<T> binding = new ConfigBinding<>(type, section, members, instance, handler, constructor);
+    binding.rebind();
+    if(section instanceof CommentedConfiguration) {
+      ((CommentedConfiguration)section).onReload(binding.rebinder);
+    }
+    return binding;
+  }
+
+  /**
+   * Returns the bound instance. For classes, each rebind replaces the instance, so callers that want to see
+   * reloaded values should call this on each read rather than hold on to it.
+   * @return The bound instance.
+   */
+  public T get() {
+    return instance;
+  }
+
+  /**
+   * Looks up and parses every bound node again, and replaces the bound values if all of them are valid.
+   * @throws IllegalStateException If any required node is missing, or any node can't be parsed as its type.
+   * The bound values are left untouched in that case.
+   */
+  public synchronized void rebind() {
+    final ValueParser parser = new ValueParser();
+    final Object[] values = new Object[members.size()];
+    final boolean[] present = new boolean[members.size()];
+    final List<String> problems = new ArrayList<>();
+
+    for(int i = 0; i < members.size(); i++) {
+      final Member member = members.get(i);
+      final ConfigSection node = section.getSection(member.path);
+      if(node == null) {
+        if(member.required) problems.add(member.name + ": missing node " + member.path.getPath());
+        values[i] = (member.type.isPrimitive())? zero(member.type) : null;
+        continue;
+      }
+
+      final Object value = read(node, member.type, parser);
+      if(value == INVALID) {
+        problems.add(member.name + ": node " + member.path.getPath() + " isn't a valid " + member.type.getSimpleName());
+        continue;
+      }
+      values[i] = value;
+      present[i] = true;
+    }
+
+    if(!problems.isEmpty()) {
+      throw new IllegalStateException("Unable to bind " + type.getName() + ": " + String.join(", ", problems));
+    }
+
+    if(handler != null) {
+      handler.values = values;
+      return;
+    }
+
+    final T bound = newInstance();
+    for(int i = 0; i < members.size(); i++) {
+      if(!present[i]) continue;
+      try {
+        members.get(i).setter.invoke(bound, values[i]);
+      } catch(Throwable e) {
+        throw new IllegalStateException("Unable to assign field " + members.get(i).name + " of " + type.getName(), e);
+      }
+    }
+    instance = bound;
+  }
+
+  /**
+   * Stops rebinding after reloads.
+   */
+  public void close() {
+    if(section instanceof CommentedConfiguration) {
+      ((CommentedConfiguration)section).removeReloadListener(rebinder);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private T newInstance() {
+    try {
+      return (T)constructor.invoke();
+    } catch(Throwable e) {
+      throw new IllegalStateException("Unable to create an instance of " + type.getName(), e);
+    }
+  }
+
+  private void rebindQuietly() {
+    try {
+      rebind();
+    } catch(IllegalStateException e) {
+      LOGGER.log(Level.WARNING, "Keeping the previous values of " + type.getName() + " after a reload.", e);
+    }
+  }
+
+  /**
+   * Checks that a collection member is a list of strings, which is the only collection type that can be bound.
+   * @throws IllegalArgumentException If the member is another kind of collection.
+   */
+  private static void checkType(Class<?> owner, String name, Class<?> type, Type generic) {
+    if(!Collection.class.isAssignableFrom(type)) return;
+
+    boolean valid = type.isAssignableFrom(LinkedList.class);
+    if(valid && generic instanceof ParameterizedType) {
+      final Type[] arguments = ((ParameterizedType)generic).getActualTypeArguments();
+      valid = arguments.length == 1 && arguments[0] == String.class;
+    }
+    if(!valid) {
+      throw new IllegalArgumentException("Member " + name + " of " + owner.getName() + " must be a List<String>, not "
+                                         + generic.getTypeName() + ".");
+    }
+  }
+
+  /**
+   * Parses the values of the specified node as the specified type.
+   * @return The parsed value, or {@link #INVALID} if it can't be parsed as the type.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Object read(ConfigSection node, Class<?> type, ValueParser parser) {
+    final List<YamlValue> values = node.getBaseNode().getValues();
+
+    if(Collection.class.isAssignableFrom(type)) {
+      final LinkedList<String> list = new LinkedList<>();
+      for(YamlValue value : values) {
+        list.add(value.getValue());
+      }
+      return (type == LinkedList.class)? list : Collections.unmodifiableList(list);
+    }
+
+    final String raw = (values.isEmpty())? null : values.get(0).getValue();
+    if(type == String.class) {
+      return (raw == null)? INVALID : raw;
+    }
+    if(type == int.class || type == Integer.class) {
+      return (parser.parseLong(raw, Integer.MIN_VALUE, Integer.MAX_VALUE))? (int)parser.getLong() : INVALID;
+    }
+    if(type == long.class || type == Long.class) {
+      return (parser.parseLong(raw, Long.MIN_VALUE, Long.MAX_VALUE))? parser.getLong() : INVALID;
+    }
+    if(type == short.class || type == Short.class) {
+      return (parser.parseLong(raw, Short.MIN_VALUE, Short.MAX_VALUE))? (short)parser.getLong() : INVALID;
+    }
+    if(type == byte.class || type == Byte.class) {
+      return (parser.parseLong(raw, Byte.MIN_VALUE, Byte.MAX_VALUE))? (byte)parser.getLong() : INVALID;
+    }
+    if(type == double.class || type == Double.class) {
+      return (parser.parseDouble(raw))? parser.getDouble() : INVALID;
+    }
+    if(type == float.class || type == Float.class) {
+      return (parser.parseFloat(raw))? parser.getFloat() : INVALID;
+    }
+    if(type == boolean.class || type == Boolean.class) {
+      return (parser.parseBoolean(raw))? parser.getBoolean() : INVALID;
+    }
+    if(type == BigDecimal.class) {
+      if(!parser.isDecimal(raw)) return INVALID;
+      try {
+        return new BigDecimal(raw);
+      } catch(NumberFormatException ignore) {
+        return INVALID;
+      }
+    }
+    if(type.isEnum() && raw != null) {
+      for(Object constant : type.getEnumConstants()) {
+        if(((Enum)constant).name().equalsIgnoreCase(raw)) return constant;
+      }
+    }
+    return INVALID;
+  }
+
+  private static Object zero(Class<?> type) {
+    if(type == boolean.class) return false;
+    if(type == char.class) return '\0';
+    if(type == byte.class) return (byte)0;
+    if(type == short.class) return (short)0;
+    if(type == int.class) return 0;
+    if(type == long.class) return 0L;
+    if(type == float.class) return 0.0f;
+    return 0.0;
+  }
+
+  /**
+   * A bound method or field.
+   */
+  private static final class Member {
+    private final String name;
+    private final ConfigPath path;
+    private final boolean required;
+    private final Class<?> type;
+    private final MethodHandle setter;
+
+    Member(String name, ConfigPath path, boolean required, Class<?> type, MethodHandle setter) {
+      this.name = name;
+      this.path = path;
+      this.required = required;
+      this.type = type;
+      this.setter = setter;
+    }
+  }
+
+  /**
+   * Implements a bound interface, returning the values of the latest successful bind.
+   *
+   * The proxy passes its own {@link Method} instances, which are equal to but not the same as those the indexes
+   * were built from. Each one is matched once by equality, after which it's found in an identity map.
+   */
+  private static final class ProxyHandler implements InvocationHandler {
+    private static final Integer UNBOUND = -1;
+
+    private final Class<?> type;
+    private final Map<Method, Integer> indexes;
+    private volatile Map<Method, Integer> resolved = new IdentityHashMap<>();
+    private volatile Object[] values = new Object[0];
+
+    ProxyHandler(Class<?> type, Map<Method, Integer> indexes) {
+      this.type = type;
+      this.indexes = indexes;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      Integer index = resolved.get(method);
+      if(index == null) index = resolve(method);
+      if(index >= 0) return values[index];
+
+      switch(method.getName()) {
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+        default:
+          throw new UnsupportedOperationException(method.getName());
+      }
+    }
+
+    /**
+     * Finds the index of a method the proxy passed for the first time, and publishes a copy of the identity map
+     * that includes it.
+     */
+    private synchronized Integer resolve(Method method) {
+      final Integer known = resolved.get(method);
+      if(known != null) return known;
+
+      final Integer index = indexes.getOrDefault(method, UNBOUND);
+      final Map<Method, Integer> updated = new IdentityHashMap<>(resolved);
+      updated.put(method, index);
+      resolved = updated;
+      return index;
+    }
+  }
+}
@@ -0,0 +1,184 @@
+package net.tnemc.config;
+
+import com.hellyard.cuttlefish.grammar.yaml.YamlNode;
+import com.hellyard.cuttlefish.grammar.yaml.YamlValue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Describes a node that was added, removed or changed between two versions of a configuration tree.
+ */
+public class ConfigChange {
+
+  public enum Type {
+    ADDED,
+    REMOVED,
+    CHANGED
+  }
+
+  private final String path;
+  private final Type type;
+
+  public ConfigChange(String path, Type type) {
+    this.path = path;
+    this.type = type;
+  }
+
+  /**
+   * Returns the dotted string node that changed.
+   * @return The dotted string node that changed.
+   */
+  public String getPath() {
+    return path;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  @Override
+  public String toString() {
+    return type + " " + path;
+  }
+
+  /**
+   * Compares two versions of a configuration tree, collecting the nodes that were added, removed or whose values
+   * changed, in file order. Sections that were loaded lazily and haven't been decoded yet are compared by their
+   * raw nodes, so the comparison never decodes them.
+   * @param prefix The dotted prefix of the compared children, i.e. "" for the top level.
+   * @param before The children before the change.
+   * @param after The children after the change.
+   * @param changes The list to add the {@link ConfigChange changes} to.
+   */
+  static void diff(String prefix, Map<String, ConfigSection> before, Map<String, ConfigSection> after, List<ConfigChange> changes) {
+    for(Map.Entry<String, ConfigSection> entry : before.entrySet()) {
+      final String path = prefix + entry.getKey();
+      final ConfigSection previous = entry.getValue();
+      final ConfigSection updated = after.get(entry.getKey());
+
+      if(updated == null) {
+        all(path, previous, Type.REMOVED, changes);
+        continue;
+      }
+      if(previous == updated) continue;
+
+      if(!sameValues(previous.getBaseNode().getValues(), updated.getBaseNode().getValues())) {
+        changes.add(new ConfigChange(path, Type.CHANGED));
+      }
+      if(previous.pendingNodes() == null && updated.pendingNodes() == null) {
+        diff(path + ".", previous.children, updated.children, changes);
+      } else {
+        diffRaw(path + ".", raw(previous), raw(updated), changes);
+      }
+    }
+
+    for(Map.Entry<String, ConfigSection> entry : after.entrySet()) {
+      if(!before.containsKey(entry.getKey())) {
+        all(prefix + entry.getKey(), entry.getValue(), Type.ADDED, changes);
+      }
+    }
+  }
+
+  private static void all(String path, ConfigSection section, Type type, List<ConfigChange> changes) {
+    changes.add(new ConfigChange(path, type));
+    for(String relative : raw(section).keySet()) {
+      changes.add(new ConfigChange(path + "." + relative, type));
+    }
+  }
+
+  /**
+   * Compares the descendants of two versions of a section by their relative paths.
+   */
+  private static void diffRaw(String prefix, Map<String, List<YamlValue>> before, Map<String, List<YamlValue>> after, List<ConfigChange> changes) {
+    for(Map.Entry<String, List<YamlValue>> entry : before.entrySet()) {
+      final List<YamlValue> updated = after.get(entry.getKey());
+      if(updated == null) {
+        changes.add(new ConfigChange(prefix + entry.getKey(), Type.REMOVED));
+      } else if(!sameValues(entry.getValue(), updated)) {
+        changes.add(new ConfigChange(prefix + entry.getKey(), Type.CHANGED));
+      }
+    }
+
+    for(String relative : after.keySet()) {
+      if(!before.containsKey(relative)) {
+        changes.add(new ConfigChange(prefix + relative, Type.ADDED));
+      }
+    }
+  }
+
+  /**
+   * Returns the values of every descendant of the specified section by its relative path, in file order, taking
+   * the descendants that haven't been decoded yet from its raw nodes rather than decoding them.
+   */
+  private static Map<String, List<YamlValue>> raw(ConfigSection section) {
+    final Map<String, List<YamlValue>> nodes = new LinkedHashMap<>();
+    raw("", section, nodes);
+    return nodes;
+  }
+
+  private static void raw(String prefix, ConfigSection section, Map<String, List<YamlValue>> nodes) {
+    //Read the pending nodes first, since decoding them publishes the children before clearing them.
+    final List<YamlNode> pending = section.pendingNodes();
+    for(Map.Entry<String, ConfigSection> entry : section.children.entrySet()) {
+      final String path = prefix + entry.getKey();
+      nodes.put(path, entry.getValue().getBaseNode().getValues());
+      raw(path + ".", entry.getValue(), nodes);
+    }
+
+    if(pending != null) {
+      final int offset = section.getBaseNode().getNode().length() + 1;
+      for(YamlNode node : pending) {
+        nodes.put(prefix + node.getNode().substring(offset), node.getValues());
+      }
+    }
+  }
+
+  private static boolean sameValues(List<YamlValue> previous, List<YamlValue> current) {
+    if(previous.size() != current.size()) return false;
+
+    for(int i = 0; i < previous.size(); i++) {
+      final String value = previous.get(i).getValue();
+      if(value == null? current.get(i).getValue() != null : !value.equals(current.get(i).getValue())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Used to check if a dotted path matches a pattern, where a "*" segment matches any single segment and a "**"
+   * segment matches any amount of segments, including none.
+   * @param pattern The segments of the pattern.
+   * @param path The segments of the path.
+   * @return True if the path matches the pattern, otherwise false.
+   */
+  static boolean matches(String[] pattern, String[] path) {
+    return matches(pattern, 0, path, 0);
+  }
+
+  private static boolean matches(String[] pattern, int p, String[] path, int i) {
+    while(p < pattern.length) {
+      if(pattern[p].equals("**")) {
+        for(int skip = i; skip <= path.length; skip++) {
+          if(matches(pattern, p + 1, path, skip)) return true;
+        }
+        return false;
+      }
+      if(i >= path.length) return false;
+      if(!pattern[p].equals("*") && !pattern[p].equals(path[i])) return false;
+      p++;
+      i++;
+    }
+    return i == path.length;
+  }
+}
@@ -0,0 +1,24 @@
+package net.tnemc.config;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Listens for changes to the nodes of a {@link CommentedConfiguration} that were picked up by a reload.
+ */
+@FunctionalInterface
+public interface ConfigChangeListener {
+
+  /**
+   * Called after a reload for each added, removed or changed node that matches the pattern this listener was
+   * registered with.
+   * @param config The {@link CommentedConfiguration configuration} that was reloaded.
+   * @param change The {@link ConfigChange change} to the node.
+   */
+  void changed(CommentedConfiguration config, ConfigChange change);
+}
@@ -0,0 +1,239 @@
+package net.tnemc.config;
+
+import com.hellyard.cuttlefish.grammar.yaml.YamlNode;
+import com.hellyard.cuttlefish.grammar.yaml.YamlValue;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * A depth-first cursor over the descendants of a {@link ConfigSection}, in the same order as
+ * {@link ConfigSection#getKeys(boolean)}, including the children of its {@link SharedDefaults shared defaults}.
+ * Obtained through {@link ConfigSection#cursor()}.
+ *
+ * The cursor only holds the position on each level of the path to the current section, which it reuses as it
+ * moves, so walking a tree allocates nothing beyond that path, unless {@link #getPath()} is called. Every level
+ * is walked as it was when the cursor reached it; changes published afterwards aren't seen by the cursor.
+ */
+public final class ConfigCursor {
+
+  private ChildMap[] own = new ChildMap[8];
+  private ChildMap[] shared = new ChildMap[8];
+  private int[] index = new int[8];
+  private int[] fence = new int[8];
+  private String[] keys = new String[8];
+  private boolean[] ignoreCase = new boolean[8];
+  private int depth = -1;
+
+  private ConfigSection current = null;
+  private boolean descend = false;
+
+  ConfigCursor(ConfigSection root) {
+    push(root);
+  }
+
+  /**
+   * Constructor for a cursor over a range of the children of a section, which was split off another cursor.
+   */
+  private ConfigCursor(ChildMap own, ChildMap shared, boolean ignoreCase, int from, int to) {
+    depth = 0;
+    this.own[0] = own;
+    this.shared[0] = shared;
+    this.ignoreCase[0] = ignoreCase;
+    index[0] = from;
+    fence[0] = to;
+  }
+
+  /**
+   * Moves to the next section, which is the first child of the current section unless its children were
+   * {@link #skipChildren() skipped}, otherwise the next section after it.
+   * @return True if the cursor moved to a section, or false if every section has been walked.
+   */
+  public boolean next() {
+    if(descend) {
+      descend = false;
+      push(current);
+    }
+
+    while(depth >= 0) {
+      final int d = depth;
+      while(index[d] < fence[d]) {
+        final int slot = index[d]++;
+        final int owned = own[d].size();
+        if(slot < owned) {
+          keys[d] = own[d].keyAt(slot);
+          current = own[d].valueAt(slot);
+        } else {
+          final String key = shared[d].keyAt(slot - owned);
+          if(overridden(d, key)) continue;
+
+          keys[d] = key;
+          current = shared[d].valueAt(slot - owned);
+        }
+        descend = true;
+        return true;
+      }
+      pop();
+    }
+    current = null;
+    return false;
+  }
+
+  /**
+   * Skips the descendants of the current section, so the next call to {@link #next()} moves to its next sibling.
+   */
+  public void skipChildren() {
+    descend = false;
+  }
+
+  /**
+   * Returns the current {@link ConfigSection section}.
+   * @return The current section, or null if the cursor isn't on one.
+   */
+  public ConfigSection getSection() {
+    return current;
+  }
+
+  /**
+   * Returns the {@link YamlNode node} of the current section.
+   * @return The node of the current section.
+   */
+  public YamlNode getNode() {
+    return current.getBaseNode();
+  }
+
+  /**
+   * Returns the values of the current section, which must not be modified.
+   * @return The values, which are empty if the current section only has children.
+   */
+  public List<YamlValue> getValues() {
+    return current.getBaseNode().getValues();
+  }
+
+  /**
+   * Returns the key of the current section within its parent.
+   * @return The key.
+   */
+  public String getKey() {
+    return keys[depth];
+  }
+
+  /**
+   * Returns how many levels below the section the cursor started on the current section is, where its direct
+   * children are at depth 0.
+   * @return The depth of the current section.
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * Returns the path of the current section relative to the section the cursor started on. Use
+   * {@link #appendPath(StringBuilder)} to build paths without creating a string for every section.
+   * @return The relative path.
+   */
+  public String getPath() {
+    return appendPath(new StringBuilder()).toString();
+  }
+
+  /**
+   * Appends the path of the current section relative to the section the cursor started on.
+   * @param builder The builder to append to.
+   * @return The builder.
+   */
+  public StringBuilder appendPath(StringBuilder builder) {
+    for(int i = 0; i <= depth; i++) {
+      if(i > 0) builder.append('.');
+      builder.append(keys[i]);
+    }
+    return builder;
+  }
+
+  /**
+   * Returns whether the cursor is between sections on the level it started on, which is the only place it can
+   * be {@link #split(int) split}.
+   */
+  boolean atStart() {
+    if(depth != 0) return false;
+    return !descend || (current.children().isEmpty() && current.fallback == null);
+  }
+
+  /**
+   * Returns the number of positions left on the level the cursor started on, including the children of its
+   * shared defaults that turn out to be overridden.
+   */
+  int remaining() {
+    return (depth == 0)? fence[0] - index[0] : 0;
+  }
+
+  /**
+   * Returns the next section on the level the cursor started on without moving to it. Only called while
+   * {@link #atStart()}.
+   * @return The next section, or null if the next position is an overridden shared child.
+   */
+  ConfigSection peek() {
+    final int slot = index[0];
+    final int owned = own[0].size();
+    if(slot < owned) return own[0].valueAt(slot);
+
+    final String key = shared[0].keyAt(slot - owned);
+    return (overridden(0, key))? null : shared[0].valueAt(slot - owned);
+  }
+
+  /**
+   * Splits off a cursor over the next positions on the level this cursor started on, which this cursor then
+   * skips. Only called while {@link #atStart()}.
+   * @param count The number of positions to split off.
+   * @return The cursor over the split off positions.
+   */
+  ConfigCursor split(int count) {
+    final ConfigCursor prefix = new ConfigCursor(own[0], shared[0], ignoreCase[0], index[0], index[0] + count);
+    index[0] += count;
+    return prefix;
+  }
+
+  private void push(ConfigSection section) {
+    final ChildMap children = section.children();
+    final ConfigSection defaults = section.fallback;
+    final ChildMap sharedChildren = (defaults == null)? null : defaults.children();
+    final int size = children.size() + ((sharedChildren == null)? 0 : sharedChildren.size());
+    if(size == 0) return;
+
+    final int d = ++depth;
+    if(d == own.length) {
+      own = Arrays.copyOf(own, d * 2);
+      shared = Arrays.copyOf(shared, d * 2);
+      index = Arrays.copyOf(index, d * 2);
+      fence = Arrays.copyOf(fence, d * 2);
+      keys = Arrays.copyOf(keys, d * 2);
+      ignoreCase = Arrays.copyOf(ignoreCase, d * 2);
+    }
+    own[d] = children;
+    shared[d] = sharedChildren;
+    ignoreCase[d] = section.isCaseInsensitive();
+    index[d] = 0;
+    fence[d] = size;
+  }
+
+  /**
+   * Returns whether a child of the shared defaults on the specified level is overridden by a child of its own.
+   */
+  private boolean overridden(int level, String key) {
+    return (ignoreCase[level])? own[level].keyIgnoreCase(key) != null : own[level].containsKey(key);
+  }
+
+  private void pop() {
+    own[depth] = null;
+    shared[depth] = null;
+    keys[depth] = null;
+    depth--;
+  }
+}
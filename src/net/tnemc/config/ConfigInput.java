@@ -0,0 +1,83 @@
+package net.tnemc.config;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Reads configuration files through a {@link FileChannel}, memory-mapping files of at least
+ * {@link #MAP_THRESHOLD} bytes and reading smaller ones straight into a buffer, then decodes the whole file as
+ * UTF-8 in one step. The channel is always closed before returning, so no file handle outlives the read.
+ */
+final class ConfigInput {
+
+  /**
+   * The size from which files are memory-mapped instead of read into a buffer.
+   */
+  static final long MAP_THRESHOLD = 1 << 20;
+
+  private ConfigInput() {
+  }
+
+  /**
+   * Reads the contents of the specified file.
+   * @param path The file to read.
+   * @return A buffer positioned at the start of the contents.
+   * @throws IOException If the file couldn't be read.
+   */
+  static ByteBuffer read(Path path) throws IOException {
+    try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final long size = channel.size();
+      ConfigMetrics.read(size);
+      if(size >= MAP_THRESHOLD) {
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+
+      final ByteBuffer buffer = ByteBuffer.allocate((int)size);
+      while(buffer.hasRemaining() && channel.read(buffer) >= 0) { }
+      buffer.flip();
+      return buffer;
+    }
+  }
+
+  /**
+   * Decodes the specified UTF-8 contents in one step, replacing malformed input like an
+   * {@link java.io.InputStreamReader} would.
+   * @param bytes The contents to decode, which are consumed.
+   * @return A {@link Reader} over the decoded characters, which holds no system resources.
+   * @throws CharacterCodingException If the contents couldn't be decoded.
+   */
+  static Reader decode(ByteBuffer bytes) throws CharacterCodingException {
+    final CharBuffer chars = StandardCharsets.UTF_8.newDecoder()
+                                                   .onMalformedInput(CodingErrorAction.REPLACE)
+                                                   .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                                                   .decode(bytes);
+    return new CharArrayReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+  }
+
+  /**
+   * Reads and decodes the specified file.
+   * @param path The file to read.
+   * @return A {@link Reader} over the decoded contents, which holds no system resources.
+   * @throws IOException If the file couldn't be read.
+   */
+  static Reader open(Path path) throws IOException {
+    return decode(read(path));
+  }
+}
@@ -0,0 +1,36 @@
+package net.tnemc.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Maps a method of an interface, or a field of a class, onto a node for {@link ConfigBinding}. On the type itself
+ * it sets a path prefix for all of its members.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD, ElementType.FIELD})
+public @interface ConfigKey {
+
+  /**
+   * The dotted path of the node, i.e. "Core.Server.Name".
+   * @return The path of the node.
+   */
+  String value();
+
+  /**
+   * Whether the node must exist. A missing optional node binds to null, zero or false for interfaces, and leaves
+   * the current value of a field untouched.
+   * @return True if the node must exist, otherwise false.
+   */
+  boolean required() default true;
+}
@@ -0,0 +1,384 @@
+package net.tnemc.config;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Opt-in metrics for every configuration in this JVM: lookups and misses per path prefix, typed parse
+ * failures, the time spent in each load and save {@link Phase phase}, and the bytes read and written. The
+ * metrics are disabled by default, in which case recording them costs a single volatile read and nothing
+ * is allocated.
+ *
+ * Lookups are counted for at most {@link #MAX_PREFIXES} distinct prefixes, so configurations with generated
+ * top-level keys don't grow the metrics without bound. Lookups of prefixes seen after that are counted under
+ * {@link #OTHER_PREFIX}.
+ *
+ * The metrics can be exported through the platform MBean server with {@link #register()}, and forwarded to
+ * {@link ConfigMetricsListener listeners}. Exceptions thrown by listeners are logged through
+ * {@link Logger java.util.logging}.
+ */
+public final class ConfigMetrics implements ConfigMetricsMXBean {
+
+  /**
+   * The name the metrics are registered under in the platform MBean server.
+   */
+  public static final String OBJECT_NAME = "net.tnemc.config:type=ConfigMetrics";
+
+  /**
+   * The number of distinct path prefixes whose lookups are counted separately.
+   */
+  public static final int MAX_PREFIXES = 256;
+
+  /**
+   * The prefix the lookups of every prefix beyond {@link #MAX_PREFIXES} are counted under.
+   */
+  public static final String OTHER_PREFIX = "(other)";
+
+  /**
+   * The timed phases of loading and saving a configuration.
+   */
+  public enum Phase {
+    /**
+     * Parsing a file into nodes, i.e. CuttlefishBuilder.build.
+     */
+    PARSE,
+
+    /**
+     * Decoding parsed nodes into {@link ConfigSection sections}.
+     */
+    DECODE,
+
+    /**
+     * Merging default nodes into loaded ones.
+     */
+    MERGE,
+
+    /**
+     * Writing sections out as YAML, i.e. YamlComposer.compose.
+     */
+    COMPOSE
+  }
+
+  private static final ConfigMetrics INSTANCE = new ConfigMetrics();
+
+  private static final Logger LOGGER = Logger.getLogger(ConfigMetrics.class.getName());
+
+  /**
+   * Returned by {@link #start()} while the metrics are disabled.
+   */
+  private static final long NOT_TIMED = Long.MIN_VALUE;
+
+  /**
+   * Read by the instrumented code before recording anything.
+   */
+  static volatile boolean enabled = false;
+
+  private final List<ConfigMetricsListener> listeners = new CopyOnWriteArrayList<>();
+
+  private final Map<String, Lookups> prefixes = new ConcurrentHashMap<>();
+  private final Lookups other = new Lookups();
+  private final LongAdder parseFailures = new LongAdder();
+  private final LongAdder[] phaseNanos = adders(Phase.values().length);
+  private final LongAdder[] phaseCounts = adders(Phase.values().length);
+  private final LongAdder bytesRead = new LongAdder();
+  private final LongAdder bytesWritten = new LongAdder();
+
+  private ConfigMetrics() {
+  }
+
+  /**
+   * Returns the metrics of this JVM.
+   * @return The {@link ConfigMetrics metrics}.
+   */
+  public static ConfigMetrics get() {
+    return INSTANCE;
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Used to enable or disable recording. Counters keep their values while disabled.
+   * @param enabled Whether to record metrics.
+   */
+  @Override
+  public void setEnabled(boolean enabled) {
+    ConfigMetrics.enabled = enabled;
+  }
+
+  /**
+   * Registers these metrics with the platform MBean server under {@link #OBJECT_NAME}.
+   * @return True if the metrics are registered, otherwise false.
+   */
+  public boolean register() {
+    try {
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      final ObjectName name = new ObjectName(OBJECT_NAME);
+      if(!server.isRegistered(name)) {
+        server.registerMBean(this, name);
+      }
+      return true;
+    } catch(Exception ignore) {
+      return false;
+    }
+  }
+
+  /**
+   * Removes these metrics from the platform MBean server.
+   */
+  public void unregister() {
+    try {
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      final ObjectName name = new ObjectName(OBJECT_NAME);
+      if(server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+    } catch(Exception ignore) { }
+  }
+
+  /**
+   * Adds a {@link ConfigMetricsListener listener} that receives every event recorded while enabled.
+   * @param listener The {@link ConfigMetricsListener listener} to add.
+   */
+  public void addListener(ConfigMetricsListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(ConfigMetricsListener listener) {
+    listeners.remove(listener);
+  }
+
+  @Override
+  public long getLookups() {
+    long total = other.lookups.sum();
+    for(Lookups lookups : prefixes.values()) {
+      total += lookups.lookups.sum();
+    }
+    return total;
+  }
+
+  @Override
+  public long getMisses() {
+    long total = other.misses.sum();
+    for(Lookups lookups : prefixes.values()) {
+      total += lookups.misses.sum();
+    }
+    return total;
+  }
+
+  @Override
+  public Map<String, Long> getLookupsByPrefix() {
+    final Map<String, Long> result = new TreeMap<>();
+    for(Map.Entry<String, Lookups> entry : prefixes.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().lookups.sum());
+    }
+    final long others = other.lookups.sum();
+    if(others > 0) result.put(OTHER_PREFIX, others);
+    return Collections.unmodifiableMap(result);
+  }
+
+  @Override
+  public Map<String, Long> getMissesByPrefix() {
+    final Map<String, Long> result = new TreeMap<>();
+    for(Map.Entry<String, Lookups> entry : prefixes.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().misses.sum());
+    }
+    final long others = other.misses.sum();
+    if(others > 0) result.put(OTHER_PREFIX, others);
+    return Collections.unmodifiableMap(result);
+  }
+
+  @Override
+  public long getParseFailures() {
+    return parseFailures.sum();
+  }
+
+  @Override
+  public Map<String, Long> getPhaseNanos() {
+    return sums(phaseNanos);
+  }
+
+  @Override
+  public Map<String, Long> getPhaseCounts() {
+    return sums(phaseCounts);
+  }
+
+  @Override
+  public long getBytesRead() {
+    return bytesRead.sum();
+  }
+
+  @Override
+  public long getBytesWritten() {
+    return bytesWritten.sum();
+  }
+
+  @Override
+  public void reset() {
+    prefixes.clear();
+    other.lookups.reset();
+    other.misses.reset();
+    parseFailures.reset();
+    for(int i = 0; i < phaseNanos.length; i++) {
+      phaseNanos[i].reset();
+      phaseCounts[i].reset();
+    }
+    bytesRead.reset();
+    bytesWritten.reset();
+  }
+
+  /**
+   * Records a lookup. Callers check {@link #enabled} first.
+   * @param path The path that was looked up.
+   * @param found Whether the node exists.
+   */
+  static void lookup(String path, boolean found) {
+    final int split = path.indexOf('.');
+    final String prefix = (split < 0)? path : path.substring(0, split);
+
+    final Lookups lookups = INSTANCE.counters(prefix);
+    lookups.lookups.increment();
+    if(!found) lookups.misses.increment();
+
+    for(ConfigMetricsListener listener : INSTANCE.listeners) {
+      try {
+        listener.lookup(path, found);
+      } catch(Exception e) {
+        failed(listener, e);
+      }
+    }
+  }
+
+  /**
+   * Records a failure to parse the value of a node. Callers check {@link #enabled} first.
+   * @param path The full path of the node.
+   * @param type The requested type.
+   */
+  static void parseFailure(String path, String type) {
+    INSTANCE.parseFailures.increment();
+
+    for(ConfigMetricsListener listener : INSTANCE.listeners) {
+      try {
+        listener.parseFailure(path, type);
+      } catch(Exception e) {
+        failed(listener, e);
+      }
+    }
+  }
+
+  /**
+   * Starts timing a {@link Phase phase}.
+   * @return The start time to pass to {@link #finish(Phase, long)}.
+   */
+  static long start() {
+    return (enabled)? System.nanoTime() : NOT_TIMED;
+  }
+
+  /**
+   * Records the time since the specified start of a {@link Phase phase}.
+   * @param phase The {@link Phase phase} that finished.
+   * @param start The value returned by {@link #start()}.
+   */
+  static void finish(Phase phase, long start) {
+    if(start == NOT_TIMED || !enabled) return;
+
+    final long nanos = System.nanoTime() - start;
+    INSTANCE.phaseNanos[phase.ordinal()].add(nanos);
+    INSTANCE.phaseCounts[phase.ordinal()].increment();
+
+    for(ConfigMetricsListener listener : INSTANCE.listeners) {
+      try {
+        listener.phase(phase, nanos);
+      } catch(Exception e) {
+        failed(listener, e);
+      }
+    }
+  }
+
+  static void read(long bytes) {
+    if(!enabled) return;
+    INSTANCE.bytesRead.add(bytes);
+
+    for(ConfigMetricsListener listener : INSTANCE.listeners) {
+      try {
+        listener.bytesRead(bytes);
+      } catch(Exception e) {
+        failed(listener, e);
+      }
+    }
+  }
+
+  static void written(long bytes) {
+    if(!enabled) return;
+    INSTANCE.bytesWritten.add(bytes);
+
+    for(ConfigMetricsListener listener : INSTANCE.listeners) {
+      try {
+        listener.bytesWritten(bytes);
+      } catch(Exception e) {
+        failed(listener, e);
+      }
+    }
+  }
+
+  /**
+   * Returns the lookup counters of the specified prefix, or those of {@link #OTHER_PREFIX} once
+   * {@link #MAX_PREFIXES} prefixes are counted.
+   */
+  private Lookups counters(String prefix) {
+    final Lookups existing = prefixes.get(prefix);
+    if(existing != null) return existing;
+    if(prefixes.size() >= MAX_PREFIXES) return other;
+
+    return prefixes.computeIfAbsent(prefix, key->new Lookups());
+  }
+
+  private static void failed(ConfigMetricsListener listener, Exception e) {
+    LOGGER.log(Level.WARNING, "Metrics listener " + listener.getClass().getName() + " failed.", e);
+  }
+
+  private static LongAdder[] adders(int count) {
+    final LongAdder[] adders = new LongAdder[count];
+    for(int i = 0; i < count; i++) {
+      adders[i] = new LongAdder();
+    }
+    return adders;
+  }
+
+  private static Map<String, Long> sums(LongAdder[] adders) {
+    final Map<String, Long> result = new LinkedHashMap<>();
+    for(Phase phase : Phase.values()) {
+      result.put(phase.name(), adders[phase.ordinal()].sum());
+    }
+    return Collections.unmodifiableMap(result);
+  }
+
+  /**
+   * The lookup counters of a single path prefix.
+   */
+  private static final class Lookups {
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+  }
+}
@@ -0,0 +1,55 @@
+package net.tnemc.config;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Receives the events recorded by {@link ConfigMetrics} while it's enabled. Events are delivered on the thread
+ * that caused them, so implementations should return quickly. Every method does nothing by default.
+ */
+public interface ConfigMetricsListener {
+
+  /**
+   * Called after a node is looked up.
+   * @param path The path that was looked up, relative to the {@link ConfigSection section} it was looked up from.
+   * @param found Whether the node exists.
+   */
+  default void lookup(String path, boolean found) {
+  }
+
+  /**
+   * Called when the value of a node can't be parsed as the requested type. Failures are cached alongside the
+   * parsed values, so this is called once per node and type until the node's values change.
+   * @param path The full path of the node.
+   * @param type The requested type, i.e. "int".
+   */
+  default void parseFailure(String path, String type) {
+  }
+
+  /**
+   * Called after a load or save {@link ConfigMetrics.Phase phase} completes.
+   * @param phase The {@link ConfigMetrics.Phase phase}.
+   * @param nanos The time the phase took, in nanoseconds.
+   */
+  default void phase(ConfigMetrics.Phase phase, long nanos) {
+  }
+
+  /**
+   * Called after a configuration file is read.
+   * @param bytes The number of bytes read.
+   */
+  default void bytesRead(long bytes) {
+  }
+
+  /**
+   * Called after a configuration file, or its snapshot, is written.
+   * @param bytes The number of bytes written.
+   */
+  default void bytesWritten(long bytes) {
+  }
+}
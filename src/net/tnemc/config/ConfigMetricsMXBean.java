@@ -0,0 +1,61 @@
+package net.tnemc.config;
+
+import java.util.Map;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * The management interface of {@link ConfigMetrics}, registered under {@link ConfigMetrics#OBJECT_NAME}.
+ */
+public interface ConfigMetricsMXBean {
+
+  boolean isEnabled();
+
+  void setEnabled(boolean enabled);
+
+  long getLookups();
+
+  long getMisses();
+
+  /**
+   * Returns the number of lookups per path prefix, which is the first segment of the looked up path. Prefixes
+   * beyond {@link ConfigMetrics#MAX_PREFIXES} are counted under {@link ConfigMetrics#OTHER_PREFIX}.
+   * @return The lookups per prefix.
+   */
+  Map<String, Long> getLookupsByPrefix();
+
+  /**
+   * Returns the number of lookups of missing nodes per path prefix.
+   * @return The misses per prefix.
+   */
+  Map<String, Long> getMissesByPrefix();
+
+  long getParseFailures();
+
+  /**
+   * Returns the total time spent in each {@link ConfigMetrics.Phase phase}, in nanoseconds.
+   * @return The time per phase name.
+   */
+  Map<String, Long> getPhaseNanos();
+
+  /**
+   * Returns the number of times each {@link ConfigMetrics.Phase phase} ran.
+   * @return The count per phase name.
+   */
+  Map<String, Long> getPhaseCounts();
+
+  long getBytesRead();
+
+  long getBytesWritten();
+
+  /**
+   * Resets every counter to zero.
+   */
+  void reset();
+}
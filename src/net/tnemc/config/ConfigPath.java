@@ -0,0 +1,124 @@
+package net.tnemc.config;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * A precompiled dotted configuration path, i.e. "Core.Server.Name", which is split into its segments once
+ * and can then be passed to the getters and setters of {@link ConfigSection} as often as needed.
+ *
+ * The last {@link ConfigSection section} that this path resolved to is cached alongside the structural
+ * generation of the configuration tree at that time, so repeated lookups from the same {@link ConfigSection}
+ * skip walking the tree until the structure of that tree changes. Sections that aren't part of a configuration
+ * don't track their structure, so lookups from them always walk the tree.
+ */
+public final class ConfigPath {
+
+  private final String path;
+  private final String[] segments;
+
+  private volatile Resolution resolution = null;
+
+  private ConfigPath(String path) {
+    this.path = path;
+    this.segments = path.split("\\.");
+  }
+
+  /**
+   * Creates a new {@link ConfigPath} for the specified dotted string node.
+   * @param path The string node, i.e. "Core.Server.Name".
+   * @return The {@link ConfigPath} for the specified string node.
+   */
+  public static ConfigPath of(String path) {
+    if(path == null) throw new IllegalArgumentException("Configuration path may not be null.");
+    return new ConfigPath(path);
+  }
+
+  /**
+   * Returns the dotted string node of this {@link ConfigPath}.
+   * @return The dotted string node of this {@link ConfigPath}.
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * Returns the amount of segments in this {@link ConfigPath}.
+   * @return The amount of segments in this {@link ConfigPath}.
+   */
+  public int length() {
+    return segments.length;
+  }
+
+  /**
+   * Returns the segment at the specified position in this {@link ConfigPath}.
+   * @param index The position of the segment.
+   * @return The segment at the specified position.
+   */
+  public String segment(int index) {
+    return segments[index];
+  }
+
+  /**
+   * Returns the segments of this path without copying them, for internal use only.
+   * @return The segments of this path.
+   */
+  String[] segments() {
+    return segments;
+  }
+
+  /**
+   * Resolves this path starting at the specified {@link ConfigSection section}.
+   * @param from The {@link ConfigSection section} to start the search from.
+   * @return The {@link ConfigSection section} this path points to if it exists, otherwise null.
+   */
+  ConfigSection resolve(ConfigSection from) {
+    final long generation = from.structureGeneration();
+    final Resolution cached = resolution;
+    if(generation >= 0 && cached != null && cached.from == from && cached.generation == generation) {
+      return cached.section;
+    }
+
+    ConfigSection section = from;
+    for(String segment : segments) {
+      section = section.child(segment);
+      if(section == null) break;
+    }
+    if(generation >= 0) resolution = new Resolution(from, generation, section);
+    return section;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if(this == o) return true;
+    if(!(o instanceof ConfigPath)) return false;
+    return path.equals(((ConfigPath)o).path);
+  }
+
+  @Override
+  public int hashCode() {
+    return path.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return path;
+  }
+
+  private static final class Resolution {
+    private final ConfigSection from;
+    private final long generation;
+    private final ConfigSection section;
+
+    Resolution(ConfigSection from, long generation, ConfigSection section) {
+      this.from = from;
+      this.generation = generation;
+      this.section = section;
+    }
+  }
+}
@@ -0,0 +1,239 @@
+package net.tnemc.config;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Loads a set of named {@link CommentedConfiguration configurations} in parallel. Each distinct defaults file
+ * is parsed once into {@link SharedDefaults shared defaults}, which every configuration registered with it
+ * falls back to instead of holding its own copy.
+ */
+public class ConfigRegistry {
+
+  private final Map<String, Registration> registrations = new LinkedHashMap<>();
+  private final Map<String, CompletableFuture<CommentedConfiguration>> futures = new ConcurrentHashMap<>();
+  private final Map<String, Long> timings = new ConcurrentHashMap<>();
+
+  private final ExecutorService executor;
+  private final boolean ownsExecutor;
+  private boolean debug = false;
+
+  /**
+   * Constructor for {@link ConfigRegistry}, which loads on as many threads as there are processors.
+   */
+  public ConfigRegistry() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructor for {@link ConfigRegistry}.
+   * @param parallelism The maximum number of configurations to load at the same time.
+   */
+  public ConfigRegistry(int parallelism) {
+    this(new ForkJoinPool(Math.max(1, parallelism)), true);
+  }
+
+  /**
+   * Constructor for {@link ConfigRegistry}.
+   * @param executor The executor to load on, which bounds the parallelism and isn't shut down by this registry.
+   */
+  public ConfigRegistry(ExecutorService executor) {
+    this(executor, false);
+  }
+
+  private ConfigRegistry(ExecutorService executor, boolean ownsExecutor) {
+    this.executor = executor;
+    this.ownsExecutor = ownsExecutor;
+  }
+
+  /**
+   * Used to enable or disable debug mode, which prints the time each configuration took to load.
+   * @param debug Whether or not to enter debug mode.
+   */
+  public void setDebug(boolean debug) {
+    this.debug = debug;
+  }
+
+  /**
+   * Registers a configuration to be loaded.
+   * @param name The name of the configuration.
+   * @param file The file that will be our final configuration file.
+   * @param defaults The file that contains our default configurations, or null for none.
+   * @return This registry.
+   */
+  public ConfigRegistry register(String name, File file, File defaults) {
+    return register(name, file.toPath(), (defaults == null)? null : defaults.toPath(), new ArrayList<>());
+  }
+
+  /**
+   * Registers a configuration to be loaded.
+   * @param name The name of the configuration.
+   * @param file The file that will be our final configuration file.
+   * @param defaults The file that contains our default configurations, or null for none.
+   * @return This registry.
+   */
+  public ConfigRegistry register(String name, Path file, Path defaults) {
+    return register(name, file, defaults, new ArrayList<>());
+  }
+
+  /**
+   * Registers a configuration to be loaded.
+   * @param name The name of the configuration.
+   * @param file The file that will be our final configuration file.
+   * @param defaults The file that contains our default configurations, or null for none.
+   * @param ignore The nodes that shouldn't be copied over from the defaults.
+   * @return This registry.
+   */
+  public synchronized ConfigRegistry register(String name, Path file, Path defaults, List<String> ignore) {
+    if(registrations.containsKey(name)) {
+      throw new IllegalArgumentException("A configuration named " + name + " is already registered.");
+    }
+    registrations.put(name, new Registration(file, defaults, new ArrayList<>(ignore)));
+    return this;
+  }
+
+  /**
+   * Loads every registered configuration that hasn't been loaded yet.
+   * @return An unmodifiable map of the futures of all registered configurations, keyed by name in the order
+   * they were registered.
+   */
+  public synchronized Map<String, CompletableFuture<CommentedConfiguration>> loadAll() {
+    final Map<List<Object>, CompletableFuture<SharedDefaults>> defaults = new HashMap<>();
+    final Map<String, CompletableFuture<CommentedConfiguration>> result = new LinkedHashMap<>();
+
+    for(Map.Entry<String, Registration> entry : registrations.entrySet()) {
+      final String name = entry.getKey();
+      final Registration registration = entry.getValue();
+
+      CompletableFuture<CommentedConfiguration> future = futures.get(name);
+      if(future == null) {
+        final CompletableFuture<SharedDefaults> shared = (registration.defaults == null)?
+            CompletableFuture.completedFuture(null) :
+            defaults.computeIfAbsent(Arrays.asList(registration.defaults.toAbsolutePath().normalize(), registration.ignore),
+                                     key->parseDefaults(registration.defaults, registration.ignore));
+
+        future = shared.thenApplyAsync(sharedDefaults->load(name, registration, sharedDefaults), executor);
+        futures.put(name, future);
+      }
+      result.put(name, future);
+    }
+    return Collections.unmodifiableMap(result);
+  }
+
+  /**
+   * Loads every registered configuration that hasn't been loaded yet, and waits for all of them to finish.
+   * @return An unmodifiable map of all registered configurations, keyed by name in the order they were
+   * registered.
+   */
+  public Map<String, CommentedConfiguration> loadAllAndWait() {
+    final Map<String, CommentedConfiguration> result = new LinkedHashMap<>();
+    for(Map.Entry<String, CompletableFuture<CommentedConfiguration>> entry : loadAll().entrySet()) {
+      result.put(entry.getKey(), entry.getValue().join());
+    }
+    return Collections.unmodifiableMap(result);
+  }
+
+  /**
+   * Returns the future of the specified configuration.
+   * @param name The name of the configuration.
+   * @return The future of the configuration, or null if it hasn't been loaded by {@link #loadAll()}.
+   */
+  public CompletableFuture<CommentedConfiguration> getFuture(String name) {
+    return futures.get(name);
+  }
+
+  /**
+   * Returns the specified configuration, waiting for it to finish loading if needed.
+   * @param name The name of the configuration.
+   * @return The configuration, or null if it hasn't been loaded by {@link #loadAll()}.
+   */
+  public CommentedConfiguration get(String name) {
+    final CompletableFuture<CommentedConfiguration> future = futures.get(name);
+    return (future == null)? null : future.join();
+  }
+
+  /**
+   * Returns the time each configuration took to load, not counting the shared parse of its defaults file.
+   * @param unit The {@link TimeUnit unit} to return the times in.
+   * @return A map of the load times of every configuration that has finished loading, keyed by name.
+   */
+  public Map<String, Long> getTimings(TimeUnit unit) {
+    final Map<String, Long> result = new LinkedHashMap<>();
+    for(String name : registrations.keySet()) {
+      final Long time = timings.get(name);
+      if(time != null) result.put(name, unit.convert(time, TimeUnit.NANOSECONDS));
+    }
+    return result;
+  }
+
+  /**
+   * Shuts down the executor of this registry if it was created by it.
+   */
+  public void shutdown() {
+    if(ownsExecutor) {
+      executor.shutdown();
+    }
+  }
+
+  private CompletableFuture<SharedDefaults> parseDefaults(Path path, List<String> ignore) {
+    return CompletableFuture.supplyAsync(()->{
+      if(!Files.exists(path)) return null;
+      try {
+        return SharedDefaults.parse(path, ignore);
+      } catch(Exception e) {
+        throw new IllegalStateException("Unable to parse defaults file " + path, e);
+      }
+    }, executor);
+  }
+
+  private CommentedConfiguration load(String name, Registration registration, SharedDefaults shared) {
+    final long start = System.nanoTime();
+
+    final CommentedConfiguration config = new CommentedConfiguration(registration.file, null);
+    if(shared == null) {
+      config.load(false);
+    } else {
+      config.load(shared);
+    }
+
+    final long time = System.nanoTime() - start;
+    timings.put(name, time);
+    if(debug) {
+      System.out.println("Loaded configuration " + name + " in " + TimeUnit.NANOSECONDS.toMillis(time) + "ms");
+    }
+    return config;
+  }
+
+  private static final class Registration {
+    private final Path file;
+    private final Path defaults;
+    private final List<String> ignore;
+
+    private Registration(Path file, Path defaults, List<String> ignore) {
+      this.file = file;
+      this.defaults = defaults;
+      this.ignore = ignore;
+    }
+  }
+}
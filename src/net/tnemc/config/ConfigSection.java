@@ -6,12 +6,19 @@ import com.hellyard.cuttlefish.grammar.yaml.YamlValue;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Created by creatorfromhell.
@@ -24,11 +31,58 @@ import java.util.Set;
  */
 public class ConfigSection {
 
+  /**
+   * The parser used by the typed getters, one per thread since a parser holds the result of its last parse.
+   */
+  private static final ThreadLocal<ValueParser> PARSER = ThreadLocal.withInitial(ValueParser::new);
+
   private YamlNode baseNode;
 
   protected boolean debug = false;
 
-  protected LinkedHashMap<String, ConfigSection> children = new LinkedHashMap<>();
+  private ParsedValues parsed = null;
+
+  /**
+   * Bumped whenever the values of this section change, which publishes the new values to readers on other
+   * threads and marks older {@link ParsedValues parsed values} as stale.
+   */
+  private volatile int version = 0;
+
+  /**
+   * The {@link ConfigTree state} of the configuration tree this section belongs to, which is shared by every
+   * section in the tree, or null if the tree isn't tracked.
+   */
+  private ConfigTree tree = null;
+
+  /**
+   * The child {@link ConfigSection sections} of this section. Maps assigned to this field are never modified
+   * afterwards; writers copy the map, apply their changes and publish the copy, so readers on any thread
+   * may walk the tree without locking.
+   */
+  volatile ChildMap children = ChildMap.EMPTY;
+
+  /**
+   * The raw {@link YamlNode nodes} below this section that haven't been decoded into sections yet, with every
+   * parent node preceding its children, or null once they have. Set for sections loaded lazily, whose children
+   * are only built the first time they're needed.
+   */
+  private volatile List<YamlNode> pending = null;
+
+  /**
+   * The matching section of a {@link SharedDefaults shared defaults} tree, which lookups fall back to for
+   * children this section doesn't have, or null if this section has no defaults.
+   */
+  volatile ConfigSection fallback = null;
+
+  /**
+   * Whether this section is part of a {@link SharedDefaults shared defaults} tree, and can't be modified.
+   */
+  private boolean frozen = false;
+
+  /**
+   * Whether keys are looked up ignoring case, which is shared by every section in the tree.
+   */
+  private volatile boolean ignoreCase = false;
 
   /**
    * Constructor for {@link ConfigSection}.
@@ -58,21 +112,14 @@ public class ConfigSection {
 
   /**
    * Used to get the child {@link ConfigSection sections} of this {@link ConfigSection}.
-   * @return A String Set of the child nodes.
+   * @param deep Whether to include all descendants as relative paths instead of only the direct children.
+   * @return An unmodifiable String Set of the child nodes.
    */
   public Set<String> getKeys(boolean deep) {
-    LinkedHashSet<String> keys = new LinkedHashSet<>();
-
-    for(YamlNode node : getNodeValues()) {
-      String keyStr = (baseNode == null)? node.getNode() : node.getNode().replace(baseNode.getNode() + ".", "");
-
-      if(!deep) {
-        keyStr = keyStr.split("\\.")[0];
-      }
-
-      if(!keys.contains(keyStr)) keys.add(keyStr);
+    if(!deep) {
+      return Collections.unmodifiableSet(allChildren().keySet());
     }
-    return keys;
+    return deepKeys();
   }
 
   /**
@@ -90,18 +137,31 @@ public class ConfigSection {
    * @return A String LinkedHashSet of the child nodes.
    */
   public LinkedHashSet<String> getKeysLinked(boolean deep) {
-    LinkedHashSet<String> keys = new LinkedHashSet<>();
+    return new LinkedHashSet<>(getKeys(deep));
+  }
 
-    for(YamlNode node : getNodeValues()) {
-      String keyStr = (baseNode == null)? node.getNode() : node.getNode().replace(baseNode.getNode() + ".", "");
+  /**
+   * Returns the relative paths of every descendant of this {@link ConfigSection}, in file order. Within a tracked
+   * tree the paths come from an index that is built once and kept up to date as the tree changes.
+   * @return An unmodifiable String Set of the relative paths.
+   */
+  private Set<String> deepKeys() {
+    final ConfigTree current = tree;
+    if(current != null && !frozen) {
+      return current.deepKeys(this);
+    }
 
-      if(!deep) {
-        keyStr = keyStr.split("\\.")[0];
-      }
+    final LinkedHashSet<String> keys = new LinkedHashSet<>();
+    collectKeys(keys, "");
+    return Collections.unmodifiableSet(keys);
+  }
 
-      if(!keys.contains(keyStr)) keys.add(keyStr);
+  private void collectKeys(Set<String> keys, String prefix) {
+    for(Map.Entry<String, ConfigSection> entry : allChildren().entrySet()) {
+      final String key = prefix + entry.getKey();
+      keys.add(key);
+      entry.getValue().collectKeys(keys, key + ".");
     }
-    return keys;
   }
 
   /**
@@ -113,6 +173,15 @@ public class ConfigSection {
     return getSection(node) != null;
   }
 
+  /**
+   * Used to check if this {@link ConfigSection} contains the specified child node.
+   * @param path The {@link ConfigPath path} to check for.
+   * @return True if the node exists, otherwise false.
+   */
+  public boolean contains(ConfigPath path) {
+    return getSection(path) != null;
+  }
+
   /**
    * Returns the {@link ConfigSection section} associated with the specified string node if it exists, otherwise
    * returns null.
@@ -121,300 +190,1036 @@ public class ConfigSection {
    * returns null
    */
   public ConfigSection getSection(String node) {
+    final ConfigSection section = findSection(node);
+    if(ConfigMetrics.enabled) ConfigMetrics.lookup(node, section != null);
+    return section;
+  }
+
+  private ConfigSection findSection(String node) {
     final String[] nodeSplit = node.split("\\.");
 
     ConfigSection section = this;
 
     for(String str : nodeSplit) {
-      if(str.equalsIgnoreCase(nodeSplit[nodeSplit.length - 1])) {
-        if(section == null) return null;
-        return section.children.get(str);
-      } else {
-        if(section == null) return null;
-        section = section.children.get(str);
-      }
+      section = section.child(str);
+      if(section == null) return null;
     }
     return section;
   }
 
-  public ConfigSection getSectionOrCreate(String node) {
-    final String[] nodeSplit = node.split("\\.");
+  /**
+   * Returns the {@link ConfigSection section} associated with the specified {@link ConfigPath path} if it exists,
+   * otherwise returns null.
+   * @param path The {@link ConfigPath path} to use for the search.
+   * @return The {@link ConfigSection section} associated with the specified {@link ConfigPath path} if it exists,
+   * otherwise returns null
+   */
+  public ConfigSection getSection(ConfigPath path) {
+    final ConfigSection section = path.resolve(this);
+    if(ConfigMetrics.enabled) ConfigMetrics.lookup(path.getPath(), section != null);
+    return section;
+  }
 
-    ConfigSection section = this;
+  public ConfigSection getSectionOrCreate(ConfigPath path) {
+    final ConfigSection section = getSection(path);
+    if(section != null && !section.frozen) return section;
 
-    for(String str : nodeSplit) {
-      final ConfigSection next = section.children.get(str);
-      if(next == null) {
-        final YamlNode base = section.getBaseNode();
-        section.createSection(new ConfigSection(new YamlNode(base, base.getIndentation() + 2, base.getLineNumber() + 1, str + ":", new LinkedList<>(), str, base.getNode() + "." + str)));
-      }
-      if(str.equalsIgnoreCase(nodeSplit[nodeSplit.length - 1])) {
-        if(section == null) return null;
-        return section.children.get(str);
-      } else {
-        if(section == null) return null;
-        section = section.children.get(str);
-      }
-    }
-    return section;
+    return createPath(path.segments(), -1, null, null);
+  }
+
+  public ConfigSection getSectionOrCreate(String node) {
+    return createPath(node.split("\\."), -1, null, null);
   }
 
   public ConfigSection getSectionOrCreate(String node, int index) {
-    final String[] nodeSplit = node.split("\\.");
+    return createPath(node.split("\\."), index, null, null);
+  }
 
+  /**
+   * Walks the specified path segments, creating any {@link ConfigSection sections} that don't exist yet.
+   * @param segments The segments of the path to walk.
+   * @param index The index to create missing sections at, or -1 to append them.
+   * @param values The values to assign to the final section, or null to leave them untouched. A newly created
+   *               final section receives its values before it is added to the tree, so readers on other threads
+   *               never observe it without them.
+   * @return The {@link ConfigSection section} at the end of the path. Sections that only exist in the
+   * {@link SharedDefaults shared defaults}, or that were shared into this tree on load, are copied into this
+   * tree, so the returned section is never frozen.
+   */
+  ConfigSection createPath(String[] segments, int index, List<YamlValue> values, ConfigBatch batch) {
     ConfigSection section = this;
 
-    for(String str : nodeSplit) {
-      final ConfigSection next = section.children.get(str);
-      if(next == null) {
-        final YamlNode base = section.getBaseNode();
-        int indentation = base.getIndentation() + 2;
-        if(section.children.size() > 0) {
-          indentation = section.children.values().iterator().next().getBaseNode().getIndentation();
+    for(int i = 0; i < segments.length; i++) {
+      final String str = segments[i];
+      final boolean last = i == (segments.length - 1);
+      ConfigSection next = section.lookup(section.children(batch), str);
+
+      if(next == null || next.frozen) {
+        synchronized(section) {
+          next = section.lookup(section.children(batch), str);
+          if(next == null || next.frozen) {
+            final String sharedKey;
+            final ConfigSection shared;
+            if(next != null) {
+              //A default that was shared into this tree on load, which is replaced by a copy in place.
+              sharedKey = section.keyIn(section.children(batch), str);
+              shared = next;
+            } else {
+              final ChildMap defaults = (section.fallback == null)? null : section.fallback.children();
+              sharedKey = (defaults == null)? null : section.keyIn(defaults, str);
+              shared = (sharedKey == null)? null : defaults.get(sharedKey);
+            }
+            final YamlNode created;
+
+            if(shared != null) {
+              created = override(shared.getBaseNode(), (last)? values : null);
+            } else {
+              final YamlNode base = section.getBaseNode();
+              int indentation = (base == null)? 0 : base.getIndentation() + 2;
+              final ChildMap siblings = section.children(batch);
+              if(index >= 0 && siblings.size() > 0) {
+                indentation = siblings.values().iterator().next().getBaseNode().getIndentation();
+              }
+              final int line = (base == null)? 1 : base.getLineNumber() + 1;
+              final String path = (base == null)? str : base.getNode() + "." + str;
+
+              created = new YamlNode(base, indentation, line, str + ":", new LinkedList<>(), str, path);
+              if(last && values != null) {
+                created.setValues(values);
+              }
+            }
+            final boolean replaced = next != null;
+            next = new ConfigSection(created);
+            next.fallback = shared;
+
+            section.addChild((replaced)? -1 : index, (sharedKey == null)? str : sharedKey, next, batch);
+
+            if(last) return next;
+          }
         }
-        section.createSection(new ConfigSection(new YamlNode(base, indentation, base.getLineNumber() + 1, str + ":", new LinkedList<>(), str, base.getNode() + "." + str)), index);
       }
-      if(str.equalsIgnoreCase(nodeSplit[nodeSplit.length - 1])) {
-        if(section == null) return null;
-        return section.children.get(str);
-      } else {
-        if(section == null) return null;
-        section = section.children.get(str);
+
+      if(last && values != null) {
+        if(batch != null) {
+          batch.stageValues(section, section.keyIn(section.children(batch), str), next, values);
+        } else {
+          next.applyValues(values);
+        }
       }
+      section = next;
     }
     return section;
   }
 
-  public void setOrCreate(String node, String... values) {
-    List<YamlValue> valuesList = new LinkedList<>();
-    for(String value : values) {
-      valuesList.add(new YamlValue(new ArrayList<>(), value, "String"));
+  /**
+   * Creates a copy of a {@link SharedDefaults shared defaults} node, which overrides it in this tree.
+   * @param shared The shared node.
+   * @param values The values of the copy, or null to copy the values of the shared node.
+   * @return The copied node.
+   */
+  private static YamlNode override(YamlNode shared, List<YamlValue> values) {
+    final YamlNode created = new YamlNode(shared.getParent(), shared.getIndentation(), shared.getLineNumber(),
+                                          shared.getLine(), new LinkedList<>(shared.getComments()),
+                                          shared.getKey(), shared.getNode());
+    if(values == null) {
+      values = new ArrayList<>(shared.getValues().size());
+      for(YamlValue value : shared.getValues()) {
+        values.add(new YamlValue(new ArrayList<>(value.getComments()), value.getValue(), value.getType()));
+      }
     }
-    getSectionOrCreate(node).getBaseNode().setValues(valuesList);
+    created.setValues(values);
+    return created;
+  }
+
+  public void setOrCreate(String node, String... values) {
+    createPath(node.split("\\."), -1, toValues(values), null);
   }
 
   public void setOrCreate(String node, YamlValue... values) {
-    getSectionOrCreate(node).getBaseNode().setValues(new LinkedList<>(Arrays.asList(values)));
+    createPath(node.split("\\."), -1, new ArrayList<>(Arrays.asList(values)), null);
+  }
+
+  public void setOrCreate(ConfigPath path, String... values) {
+    createPath(path.segments(), -1, toValues(values), null);
+  }
+
+  public void setOrCreate(ConfigPath path, YamlValue... values) {
+    createPath(path.segments(), -1, new ArrayList<>(Arrays.asList(values)), null);
   }
 
   public void setOrCreate(String node, int index, String... values) {
-    List<YamlValue> valuesList = new LinkedList<>();
-    for(String value : values) {
-      valuesList.add(new YamlValue(new ArrayList<>(), value, "String"));
-    }
-    getSectionOrCreate(node, index).getBaseNode().setValues(valuesList);
+    createPath(node.split("\\."), index, toValues(values), null);
   }
 
   public void setOrCreate(String node, int index, YamlValue... values) {
-    getSectionOrCreate(node, index).getBaseNode().setValues(new LinkedList<>(Arrays.asList(values)));
+    createPath(node.split("\\."), index, new ArrayList<>(Arrays.asList(values)), null);
   }
 
   public void set(String node, String... values) {
-    List<YamlValue> valuesList = new LinkedList<>();
-    for(String value : values) {
-      valuesList.add(new YamlValue(new ArrayList<>(), value, "String"));
-    }
-    getNode(node).setValues(valuesList);
+    writable(node.split("\\."), getSection(node)).applyValues(toValues(values));
   }
 
   public void set(String node, YamlValue... values) {
-    getNode(node).setValues(Arrays.asList(values));
+    writable(node.split("\\."), getSection(node)).applyValues(new ArrayList<>(Arrays.asList(values)));
+  }
+
+  public void set(ConfigPath path, String... values) {
+    writable(path.segments(), getSection(path)).applyValues(toValues(values));
+  }
+
+  public void set(ConfigPath path, YamlValue... values) {
+    writable(path.segments(), getSection(path)).applyValues(new ArrayList<>(Arrays.asList(values)));
   }
 
   public void setValue(String node, YamlValue value, int number) {
-    List<YamlValue> values = getNode(node).getValues();
-    if(values.size() < number) {
-      number = values.size();
+    writable(node.split("\\."), getSection(node)).applyValue(value, number);
+  }
+
+  public void setValue(ConfigPath path, YamlValue value, int number) {
+    writable(path.segments(), getSection(path)).applyValue(value, number);
+  }
+
+  /**
+   * Returns the specified section, or its copy in this tree if it belongs to the
+   * {@link SharedDefaults shared defaults}.
+   * @param segments The segments of the path of the section.
+   * @param section The section found at the path, or null.
+   * @return The section that can be modified, or null if there is no section at the path.
+   */
+  private ConfigSection writable(String[] segments, ConfigSection section) {
+    if(section == null || !section.frozen) return section;
+    return createPath(segments, -1, null, null);
+  }
+
+  private void applyValues(List<YamlValue> values) {
+    assignValues(values);
+    modified();
+  }
+
+  /**
+   * Assigns the values of this section without counting it as a modification.
+   * @param values The new values.
+   */
+  void assignValues(List<YamlValue> values) {
+    checkMutable();
+    baseNode.setValues(values);
+    valuesChanged();
+  }
+
+  /**
+   * Returns a copy of this section with the specified values, which shares its children. A
+   * {@link ConfigBatch batch} publishes the copy in place of this section, so its new values become visible
+   * together with the other changes to the children of its parent.
+   * @param values The values of the copy.
+   * @return The copy.
+   */
+  ConfigSection copyWithValues(List<YamlValue> values) {
+    checkMutable();
+    final YamlNode node = new YamlNode(baseNode.getParent(), baseNode.getIndentation(), baseNode.getLineNumber(),
+                                       baseNode.getLine(), new LinkedList<>(baseNode.getComments()),
+                                       baseNode.getKey(), baseNode.getNode());
+    node.setValues(values);
+
+    final ConfigSection copy = new ConfigSection(node);
+    copy.children = children();
+    copy.fallback = fallback;
+    copy.ignoreCase = ignoreCase;
+    copy.tree = tree;
+    copy.debug = debug;
+    return copy;
+  }
+
+  /**
+   * Replaces one value of this section, or appends it if the number is past the last value. The values are
+   * copied rather than modified in place, since readers on other threads may be walking the published list.
+   */
+  private synchronized void applyValue(YamlValue value, int number) {
+    checkMutable();
+    if(number < 0) {
+      throw new IndexOutOfBoundsException("Value number " + number + " of " + baseNode.getNode() + " is negative.");
+    }
+
+    final List<YamlValue> values = new ArrayList<>(baseNode.getValues());
+    if(number >= values.size()) {
+      values.add(value);
+    } else {
+      values.set(number, value);
+    }
+    applyValues(values);
+  }
+
+  private static List<YamlValue> toValues(String... values) {
+    List<YamlValue> valuesList = new ArrayList<>(values.length);
+    for(String value : values) {
+      valuesList.add(new YamlValue(new ArrayList<>(), value, "String"));
     }
-    values.set(number, value);
-    getNode(node).setValues(values);
+    return valuesList;
+  }
+
+  /**
+   * Used to signal that the values of the base {@link YamlNode node} of this {@link ConfigSection} were modified
+   * directly, i.e. through {@link #getNode(String)}. This drops the values parsed and cached by the typed getters,
+   * and counts as a modification of the tree, so the next save writes it. The setters do this automatically.
+   */
+  public void invalidateCache() {
+    valuesChanged();
+    modified();
+  }
+
+  private synchronized void valuesChanged() {
+    version++;
   }
 
   /**
    * Returns the {@link YamlNode node} associated with the specified string node if it exists, otherwise
-   * returns null.
+   * returns null. After modifying the values of the node directly, call {@link #invalidateCache()} on its
+   * section, since saves skip configurations without modifications.
    * @param node The string node to use for the search.
    * @return The {@link YamlNode node} associated with the specified string node if it exists, otherwise
    * returns null
    */
   public YamlNode getNode(String node) {
-    final String[] nodeSplit = node.split("\\.");
-
-    ConfigSection section = this;
+    final ConfigSection section = findSection(node);
+    if(section == null) return null;
+    return section.getBaseNode();
+  }
 
-    for(String str : nodeSplit) {
-      if(str.equalsIgnoreCase(nodeSplit[nodeSplit.length - 1])) {
-        return section.children.get(str).getBaseNode();
-      } else {
-        if(section == null) break;
-        section = section.children.get(str);
-      }
-    }
+  /**
+   * Returns the {@link YamlNode node} associated with the specified {@link ConfigPath path} if it exists, otherwise
+   * returns null. After modifying the values of the node directly, call {@link #invalidateCache()} on its
+   * section, since saves skip configurations without modifications.
+   * @param path The {@link ConfigPath path} to use for the search.
+   * @return The {@link YamlNode node} associated with the specified {@link ConfigPath path} if it exists, otherwise
+   * returns null
+   */
+  public YamlNode getNode(ConfigPath path) {
+    final ConfigSection section = getSection(path);
     if(section == null) return null;
     return section.getBaseNode();
   }
 
   /**
-   * Used to get all child {@link YamlNode nodes} of this one.
+   * Used to get all child {@link YamlNode nodes} of this one, in file order. The tree is walked by a
+   * {@link ConfigCursor cursor}, so no intermediate maps are built for sections with shared defaults.
    * @return A LinkedList of all child {@link YamlNode nodes}.
    */
   public LinkedList<YamlNode> getNodeValues() {
-    LinkedList<YamlNode> nodeValues = new LinkedList<>();
-
-    for(ConfigSection node : children.values()) {
-      nodeValues.add(node.getBaseNode());
-      if(node.children.size() > 0) {
-        nodeValues.addAll(node.getNodeValues());
-      }
+    final LinkedList<YamlNode> nodeValues = new LinkedList<>();
+    final ConfigCursor cursor = new ConfigCursor(this);
+    while(cursor.next()) {
+      nodeValues.add(cursor.getNode());
     }
     return nodeValues;
   }
 
   /**
-   * Adds a new {@link ConfigSection section} under this one.
-   * @param section The {@link ConfigSection section} to add.
+   * Returns a depth-first {@link ConfigCursor cursor} over the descendants of this {@link ConfigSection}, which
+   * walks the tree in place instead of copying it like {@link #getNodeValues()}.
+   * @return The {@link ConfigCursor cursor}, positioned before the first descendant.
    */
-  public void createSection(ConfigSection section) {
-
-    ConfigSection parent = this;
-    final String[] split = section.getBaseNode().getNode().split("\\.");
+  public ConfigCursor cursor() {
+    return new ConfigCursor(this);
+  }
 
+  /**
+   * Used to visit every descendant of this {@link ConfigSection} depth-first.
+   * @param visitor The {@link ConfigVisitor visitor}.
+   * @return True if every descendant was visited, or false if the visitor stopped early.
+   */
+  public boolean walk(ConfigVisitor visitor) {
+    final ConfigCursor cursor = new ConfigCursor(this);
+    while(cursor.next()) {
+      if(!visitor.visit(cursor)) return false;
+    }
+    return true;
+  }
 
-    if(split.length > 1) {
-      String nodeLooped = "";
-      for(int i = 0; i < split.length; i++) {
-        if(i > 0) nodeLooped += ".";
-        nodeLooped += split[i];
+  /**
+   * Returns a sequential stream of the descendant {@link ConfigSection sections} of this one, depth-first.
+   * @return The stream.
+   */
+  public Stream<ConfigSection> stream() {
+    return StreamSupport.stream(new SectionSpliterator(this), false);
+  }
 
-        if(parent.getBaseNode().getNode().contains(nodeLooped)) continue;
+  /**
+   * Returns a parallel stream of the descendant {@link ConfigSection sections} of this one, which splits the
+   * tree into subtrees that are walked on separate threads.
+   * @return The stream.
+   */
+  public Stream<ConfigSection> parallelStream() {
+    return StreamSupport.stream(new SectionSpliterator(this), true);
+  }
 
-        if(i == (split.length - 1)) {
-          parent.children.put(split[i], section);
-        } else {
-          parent = parent.getSection(split[i]);
-        }
-      }
-    } else {
-      children.put(section.getBaseNode().getNode(), section);
-    }
+  /**
+   * Adds a new {@link ConfigSection section} under this one.
+   * @param section The {@link ConfigSection section} to add.
+   */
+  public void createSection(ConfigSection section) {
+    createSection(section, -1);
   }
 
   /**
    * Adds a new {@link ConfigSection section} under this one at the specific index.
-   * @param section The {@link ConfigSection section} to add.
+   * @param section The {@link ConfigSection section} to add. Its path may be absolute, or relative to this
+   *                section, and any missing sections along it are created.
+   * @param index The index to add the section at, or -1 to add it to the end.
    */
   public void createSection(ConfigSection section, int index) {
-
-    ConfigSection parent = this;
     final String[] split = section.getBaseNode().getNode().split("\\.");
 
+    int start = 0;
+    if(baseNode != null) {
+      final String base = baseNode.getNode();
+      if(section.getBaseNode().getNode().startsWith(base + ".")) {
+        start = base.split("\\.").length;
+      }
+    }
 
-    if(split.length > 1) {
-      String nodeLooped = "";
-      for(int i = 0; i < split.length; i++) {
-        if(i > 0) nodeLooped += ".";
-        nodeLooped += split[i];
-
-        if(parent.getBaseNode().getNode().contains(nodeLooped)) continue;
+    ConfigSection parent = this;
+    if(split.length - 1 > start) {
+      parent = createPath(Arrays.copyOfRange(split, start, split.length - 1), -1, null, null);
+    }
 
-        if(i == (split.length - 1)) {
-          parent.addChildIndex(index, split[i], section);
-        } else {
-          parent = parent.getSection(split[i]);
-        }
-      }
+    if(index >= 0) {
+      parent.addChildIndex(index, split[split.length - 1], section);
     } else {
-      addChildIndex(index, section.getBaseNode().getNode(), section);
+      parent.putChild(split[split.length - 1], section);
     }
   }
 
-  public void addChildIndex(int index, String node, ConfigSection section) {
-    LinkedHashMap<String, ConfigSection> newChildren = new LinkedHashMap<>();
+  /**
+   * Adds a child {@link ConfigSection section} to the end of this one, publishing a new copy of the children.
+   * @param node The key of the child section.
+   * @param section The {@link ConfigSection section} to add.
+   */
+  protected void putChild(String node, ConfigSection section) {
+    addChildIndex(-1, node, section);
+  }
 
-    int i = 0;
-    for(Map.Entry<String, ConfigSection> entry : children.entrySet()) {
-      if(i == index) {
-        newChildren.put(node, section);
-      }
-      newChildren.put(entry.getKey(), entry.getValue());
+  /**
+   * Adds a child {@link ConfigSection section} to this one at the specified index, publishing a new copy of the
+   * children. If a child with the same key exists, it's replaced and moved to the index.
+   * @param index The index to add the section at, which is clamped to the existing children, or -1 to add it to
+   *              the end or replace an existing child in place.
+   * @param node The key of the child section.
+   * @param section The {@link ConfigSection section} to add.
+   */
+  public void addChildIndex(int index, String node, ConfigSection section) {
+    addChild(index, node, section, null);
+  }
 
-      i++;
-    }
-    children = newChildren;
+  /**
+   * Removes the {@link ConfigSection section} at the specified path.
+   * @param node The path of the section to remove.
+   * @return True if the section was removed, otherwise false.
+   */
+  public boolean remove(String node) {
+    return remove(node.split("\\."), null);
   }
 
   /**
-   * Checks to see if a node is associated with a configuration section, i.e. a {@link YamlNode} with
-   * no values, but rather only contains children.
-   * @param node The string node to use in the check.
-   * @return True if the {@link ConfigSection section} with the specified string node exists, and the
-   * associated {@link YamlNode node} contains no values.
+   * Moves the {@link ConfigSection section} at the specified path to another position among its siblings.
+   * @param node The path of the section to move.
+   * @param index The new index of the section, which is clamped to its siblings.
+   * @return True if the section was moved, otherwise false.
    */
-  public boolean isConfigurationSection(String node) {
-    final ConfigSection section = getSection(node);
-    if(section == null) return false;
+  public boolean move(String node, int index) {
+    return move(node.split("\\."), index, null);
+  }
 
-    return section.getBaseNode().getValues().size() == 0;
+  /**
+   * Applies many changes to this {@link ConfigSection section} and its descendants at once. The changes are
+   * staged while the specified consumer runs, and published afterwards in a single step, with a single
+   * structural update and a single modification. Children are copied at most once per affected section, so
+   * inserting many keys at positions is no longer quadratic.
+   *
+   * Sections whose values the batch changes are replaced by copies holding the new values, which are published
+   * along with the children of their parents, so readers never see the new structure with the old values.
+   * Sections obtained before the batch keep their old values.
+   *
+   * A batch is meant to be used by a single writer; changes made by other threads to the affected sections while
+   * it runs may be lost.
+   * @param changes The consumer that applies the changes to the {@link ConfigBatch batch}.
+   */
+  public void batch(Consumer<ConfigBatch> changes) {
+    final ConfigBatch batch = new ConfigBatch(this);
+    changes.accept(batch);
+    batch.commit();
   }
 
-  public int getInt(String node) {
-    return getInt(node, 0);
+  /**
+   * Returns the children of this section as seen by the specified batch.
+   * @param batch The batch, or null for the published children.
+   * @return The children, which must only be modified through the batch.
+   */
+  ChildMap children(ConfigBatch batch) {
+    return (batch == null)? children() : batch.children(this);
   }
 
-  public int getInt(String node, int def) {
-    final ConfigSection section = getSection(node);
-    if(section == null) return def;
+  /**
+   * Returns the children of this section, decoding them first if this section was loaded lazily.
+   * @return The published children, which must not be modified.
+   */
+  ChildMap children() {
+    if(pending != null) materialize();
+    return children;
+  }
 
-    try {
-      return Integer.valueOf(section.getBaseNode().getValues().get(0).getValue());
-    } catch(Exception ignore) {
-      return def;
+  /**
+   * Used to hold back the specified descendant {@link YamlNode node} of this section until its children are
+   * first needed. Only called while this section isn't published yet.
+   * @param node The descendant {@link YamlNode node}, which must follow its parent node.
+   */
+  void defer(YamlNode node) {
+    compactValues(node);
+    List<YamlNode> nodes = pending;
+    if(nodes == null) {
+      nodes = new ArrayList<>();
+      pending = nodes;
     }
+    nodes.add(node);
   }
 
-  public boolean getBool(String node) {
-    return getBool(node, false);
+  /**
+   * Used while building a section that isn't published yet to add a child to it directly.
+   * @param key The key of the child.
+   * @param child The child {@link ConfigSection section}.
+   */
+  void putBuilt(String key, ConfigSection child) {
+    if(children == ChildMap.EMPTY) children = new ChildMap();
+    children.put(key, child);
   }
 
-  public boolean getBool(String node, boolean def) {
-    final ConfigSection section = getSection(node);
-    if(section == null) return def;
-
-    try {
-      return Boolean.valueOf(section.getBaseNode().getValues().get(0).getValue());
-    } catch(Exception ignore) {
-      return def;
+  /**
+   * Replaces the values of a freshly parsed {@link YamlNode node} with an array-backed list of the same values,
+   * which holds them in far less memory than the linked list the parser produces.
+   * @param node The parsed node.
+   */
+  static void compactValues(YamlNode node) {
+    final List<YamlValue> values = node.getValues();
+    if(!(values instanceof ArrayList)) {
+      node.setValues(new ArrayList<>(values));
     }
   }
 
-  public double getDouble(String node) {
-    return getDouble(node, 0.0);
+  /**
+   * Returns the raw {@link YamlNode nodes} below this section that haven't been decoded yet.
+   * @return The pending nodes, which must not be modified, or null if the children of this section are decoded.
+   */
+  List<YamlNode> pendingNodes() {
+    return pending;
   }
 
-  public double getDouble(String node, double def) {
-    final ConfigSection section = getSection(node);
-    if(section == null) return def;
-
-    try {
-      return Double.valueOf(section.getBaseNode().getValues().get(0).getValue());
-    } catch(Exception ignore) {
-      return def;
+  /**
+   * Decodes the direct children of this section from its pending {@link YamlNode nodes}, handing each deeper node
+   * on to the child it belongs to, so every level is only decoded once it's reached.
+   */
+  private synchronized void materialize() {
+    final List<YamlNode> nodes = pending;
+    if(nodes == null) return;
+
+    final int offset = baseNode.getNode().length() + 1;
+    final ConfigSection shared = fallback;
+    final ChildMap built = children.copy();
+    for(YamlNode node : nodes) {
+      final String path = node.getNode();
+      final int split = path.indexOf('.', offset);
+
+      if(split < 0) {
+        final String key = path.substring(offset).intern();
+        final ConfigSection child = new ConfigSection(node);
+        child.tree = tree;
+        child.frozen = frozen;
+        child.ignoreCase = ignoreCase;
+        child.fallback = (shared == null)? null : lookup(shared.children(), key);
+        built.put(key, child);
+      } else {
+        final ConfigSection child = built.get(path.substring(offset, split));
+        if(child != null) child.defer(node);
+      }
     }
+    if(shared != null && !frozen) shareDefaults(built);
+    children = built;
+    pending = null;
   }
 
-  public short getShort(String node) {
-    return getShort(node, (short)0);
+  /**
+   * Adds a child {@link ConfigSection section}, either by publishing a new copy of the children, or by
+   * staging it in the specified batch.
+   */
+  void addChild(int index, String node, ConfigSection section, ConfigBatch batch) {
+    checkMutable();
+    if(tree != null) tree.added(this, node, section);
+    section.attachTree(tree);
+    if(section.ignoreCase != ignoreCase) section.foldKeys(ignoreCase);
+    if(batch != null) {
+      final ChildMap staged = batch.writable(this);
+      if(index < 0) staged.put(node, section); else staged.insert(index, node, section);
+      batch.created(section);
+      return;
+    }
+
+    synchronized(this) {
+      final ChildMap updated = children().copy();
+      if(index < 0) updated.put(node, section); else updated.insert(index, node, section);
+      children = updated;
+    }
+    structureChanged();
+    modified();
   }
 
-  public short getShort(String node, short def) {
-    final ConfigSection section = getSection(node);
-    if(section == null) return def;
+  boolean remove(String[] segments, ConfigBatch batch) {
+    final ConfigSection parent = parentOf(segments, batch);
+    if(parent == null) return false;
+
+    final String key = parent.keyIn(parent.children(batch), segments[segments.length - 1]);
+    if(key == null) return false;
+
+    parent.checkMutable();
+    if(batch != null) {
+      batch.writable(parent).remove(key);
+      return true;
+    }
 
-    try {
-      return Short.valueOf(section.getBaseNode().getValues().get(0).getValue());
-    } catch(Exception ignore) {
-      return def;
+    synchronized(parent) {
+      final ChildMap updated = parent.children().copy();
+      if(updated.remove(key) == null) return false;
+      parent.children = updated;
     }
+    parent.structureChanged();
+    modified();
+    return true;
+  }
+
+  boolean move(String[] segments, int index, ConfigBatch batch) {
+    final ConfigSection parent = parentOf(segments, batch);
+    if(parent == null) return false;
+
+    final String key = parent.keyIn(parent.children(batch), segments[segments.length - 1]);
+    if(key == null) return false;
+
+    parent.checkMutable();
+    if(batch != null) {
+      return batch.writable(parent).move(key, index);
+    }
+
+    synchronized(parent) {
+      final ChildMap updated = parent.children().copy();
+      if(!updated.move(key, index)) return false;
+      parent.children = updated;
+    }
+    parent.structureChanged();
+    modified();
+    return true;
+  }
+
+  private ConfigSection parentOf(String[] segments, ConfigBatch batch) {
+    ConfigSection section = this;
+    for(int i = 0; i < segments.length - 1 && section != null; i++) {
+      section = section.lookup(section.children(batch), segments[i]);
+    }
+    return section;
+  }
+
+  /**
+   * Returns the child {@link ConfigSection section} with the specified key, falling back to the
+   * {@link SharedDefaults shared defaults} of this section if it doesn't have one itself.
+   * @param key The key of the child.
+   * @return The child section, or null if neither this section nor its defaults have it.
+   */
+  ConfigSection child(String key) {
+    final ConfigSection child = lookup(children(), key);
+    if(child != null) return child;
+
+    final ConfigSection shared = fallback;
+    return (shared == null)? null : lookup(shared.children(), key);
+  }
+
+  /**
+   * Returns the section of the specified key in the specified children of this section or its defaults,
+   * ignoring case if this section does.
+   * @param map The children to look in.
+   * @param key The key.
+   * @return The section, or null if the children don't have the key.
+   */
+  ConfigSection lookup(ChildMap map, String key) {
+    return (ignoreCase)? map.getIgnoreCase(key) : map.get(key);
+  }
+
+  /**
+   * Returns the key of the specified children that the specified key refers to, which differs from it only if
+   * this section ignores case.
+   * @param map The children to look in.
+   * @param key The key.
+   * @return The key in its original case, or null if the children don't have the key.
+   */
+  String keyIn(ChildMap map, String key) {
+    if(ignoreCase) return map.keyIgnoreCase(key);
+    return (map.containsKey(key))? key : null;
+  }
+
+  /**
+   * Returns the children of this {@link ConfigSection section}, followed by the children of its
+   * {@link SharedDefaults shared defaults} that it doesn't override.
+   * @return The children, which must not be modified.
+   */
+  Map<String, ConfigSection> allChildren() {
+    final ChildMap own = children();
+    final ConfigSection shared = fallback;
+    if(shared == null) return own;
+
+    final LinkedHashMap<String, ConfigSection> merged = new LinkedHashMap<>(own);
+    for(Map.Entry<String, ConfigSection> entry : shared.children().entrySet()) {
+      if(ignoreCase && own.keyIgnoreCase(entry.getKey()) != null) continue;
+      merged.putIfAbsent(entry.getKey(), entry.getValue());
+    }
+    return merged;
+  }
+
+  /**
+   * Used to make the specified section of a {@link SharedDefaults shared defaults} tree the fallback of this
+   * section, and its matching children the fallbacks of the children of this section.
+   * @param shared The matching shared section, or null to detach this section from its defaults.
+   */
+  void attachFallback(ConfigSection shared) {
+    fallback = shared;
+    boolean share = false;
+    for(Map.Entry<String, ConfigSection> entry : children.entrySet()) {
+      final ConfigSection child = entry.getValue();
+      if(child.frozen) continue;
+
+      child.attachFallback((shared == null)? null : lookup(shared.children, entry.getKey()));
+      share |= child.matchesDefault();
+    }
+
+    if(share) {
+      final ChildMap updated = children.copy();
+      shareDefaults(updated);
+      children = updated;
+    }
+  }
+
+  /**
+   * Replaces every child that is identical to its {@link SharedDefaults shared default} with the shared section
+   * itself, so a configuration whose file repeats the defaults doesn't hold its own copy of them. Writing to a
+   * shared child copies it back into the tree first, like any other default.
+   * @param map The children to share, which must not be published yet.
+   */
+  static void shareDefaults(ChildMap map) {
+    List<String> matching = null;
+    for(Map.Entry<String, ConfigSection> entry : map.entrySet()) {
+      if(entry.getValue().matchesDefault()) {
+        if(matching == null) matching = new ArrayList<>();
+        matching.add(entry.getKey());
+      }
+    }
+
+    if(matching != null) {
+      for(String key : matching) {
+        map.put(key, map.get(key).fallback);
+      }
+    }
+  }
+
+  /**
+   * Returns whether this section is a leaf that holds exactly what its shared default holds, so the shared
+   * section can stand in for it. Only leaves are shared, since lookups below a shared section don't follow the
+   * case setting of this tree.
+   */
+  private boolean matchesDefault() {
+    final ConfigSection shared = fallback;
+    if(frozen || shared == null || !shared.frozen) return false;
+    if(pending != null || !children.isEmpty() || !shared.children.isEmpty()) return false;
+
+    final YamlNode own = baseNode;
+    final YamlNode other = shared.baseNode;
+    if(own.getIndentation() != other.getIndentation() || !Objects.equals(own.getNode(), other.getNode())
+       || !Objects.equals(own.getLine(), other.getLine())
+       || !Objects.equals(own.getComments(), other.getComments())) {
+      return false;
+    }
+
+    final List<YamlValue> values = own.getValues();
+    final List<YamlValue> defaults = other.getValues();
+    if(values.size() != defaults.size()) return false;
+    for(int i = 0; i < values.size(); i++) {
+      final YamlValue value = values.get(i);
+      final YamlValue defaultValue = defaults.get(i);
+      if(!Objects.equals(value.getValue(), defaultValue.getValue())
+         || !Objects.equals(value.getType(), defaultValue.getType())
+         || !Objects.equals(value.getComments(), defaultValue.getComments())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Used to mark this {@link ConfigSection section} and all of its descendants as part of a
+   * {@link SharedDefaults shared defaults} tree, after which they can't be modified.
+   */
+  void freeze() {
+    frozen = true;
+    for(ConfigSection child : children.values()) {
+      child.freeze();
+    }
+  }
+
+  /**
+   * Returns whether this {@link ConfigSection section} is part of a {@link SharedDefaults shared defaults}
+   * tree, and can't be modified.
+   * @return True if this section is frozen, otherwise false.
+   */
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  /**
+   * Used to make this {@link ConfigSection section} and all of its descendants look up keys ignoring case,
+   * so "core.server.name" finds "Core.Server.Name". Keys keep their original case and order, and sections added
+   * afterwards inherit the setting. A key that matches exactly is preferred over keys that only differ in case.
+   * @param ignoreCase Whether to ignore case.
+   */
+  public void setCaseInsensitive(boolean ignoreCase) {
+    foldKeys(ignoreCase);
+    structureChanged();
+  }
+
+  public boolean isCaseInsensitive() {
+    return ignoreCase;
+  }
+
+  void foldKeys(boolean ignoreCase) {
+    this.ignoreCase = ignoreCase;
+    for(ConfigSection child : children.values()) {
+      if(!child.frozen) child.foldKeys(ignoreCase);
+    }
+  }
+
+  private void checkMutable() {
+    if(frozen) {
+      throw new UnsupportedOperationException("Sections of shared defaults can't be modified.");
+    }
+  }
+
+  /**
+   * Used to make this {@link ConfigSection} the root of a tracked tree, sharing a modification counter with all
+   * of its descendants. Sections added to a tracked tree afterwards join it as they're added.
+   * @param modifications The modification counter of the tree, or null to not count modifications.
+   */
+  protected void trackModifications(AtomicLong modifications) {
+    attachTree(new ConfigTree(modifications));
+  }
+
+  /**
+   * Used to make this {@link ConfigSection} and all of its descendants part of the specified tree. Sections that
+   * are frozen belong to {@link SharedDefaults shared defaults}, and are left alone.
+   * @param tree The state of the tree, or null to stop tracking.
+   */
+  void attachTree(ConfigTree tree) {
+    this.tree = tree;
+    for(ConfigSection child : children.values()) {
+      if(!child.frozen) child.attachTree(tree);
+    }
+  }
+
+  ConfigTree tree() {
+    return tree;
+  }
+
+  /**
+   * Returns the amount of modifications made to the tree this {@link ConfigSection} belongs to.
+   * @return The modification count, or 0 if the tree doesn't track modifications.
+   */
+  protected long getModificationCount() {
+    final ConfigTree current = tree;
+    final AtomicLong mods = (current == null)? null : current.modifications();
+    return (mods == null)? 0 : mods.get();
+  }
+
+  /**
+   * Used to signal that the values or children of this {@link ConfigSection} changed.
+   */
+  protected void modified() {
+    final ConfigTree current = tree;
+    final AtomicLong mods = (current == null)? null : current.modifications();
+    if(mods != null) mods.incrementAndGet();
+  }
+
+  /**
+   * Returns the structural generation of the tree this {@link ConfigSection} belongs to.
+   * @return The structural generation, which never changes for frozen sections, or -1 if the tree isn't tracked
+   * and its structure can't be cached.
+   */
+  long structureGeneration() {
+    if(frozen) return 0;
+
+    final ConfigTree current = tree;
+    return (current == null)? -1 : current.generation();
+  }
+
+  /**
+   * Used to signal that the children of this {@link ConfigSection} were added, removed, moved or loaded. This
+   * invalidates the {@link ConfigSection sections} cached by {@link ConfigPath} instances for this tree, and
+   * updates the deep key indexes of this section and the sections above it.
+   */
+  protected void structureChanged() {
+    final ConfigTree current = tree;
+    if(current != null) current.changed(this);
+  }
+
+  /**
+   * Checks to see if a node is associated with a configuration section, i.e. a {@link YamlNode} with
+   * no values, but rather only contains children.
+   * @param node The string node to use in the check.
+   * @return True if the {@link ConfigSection section} with the specified string node exists, and the
+   * associated {@link YamlNode node} contains no values.
+   */
+  public boolean isConfigurationSection(String node) {
+    final ConfigSection section = getSection(node);
+    if(section == null) return false;
+
+    return section.getBaseNode().getValues().size() == 0;
+  }
+
+  public boolean isConfigurationSection(ConfigPath path) {
+    final ConfigSection section = getSection(path);
+    if(section == null) return false;
+
+    return section.getBaseNode().getValues().size() == 0;
+  }
+
+  public int getInt(String node) {
+    return getInt(node, 0);
+  }
+
+  public int getInt(String node, int def) {
+    final ConfigSection section = getSection(node);
+    if(section == null) return def;
+
+    return section.intValue(def);
+  }
+
+  public int getInt(ConfigPath path) {
+    return getInt(path, 0);
+  }
+
+  public int getInt(ConfigPath path, int def) {
+    final ConfigSection section = getSection(path);
+    if(section == null) return def;
+
+    return section.intValue(def);
+  }
+
+  public boolean getBool(String node) {
+    return getBool(node, false);
+  }
+
+  public boolean getBool(String node, boolean def) {
+    final ConfigSection section = getSection(node);
+    if(section == null) return def;
+
+    return section.boolValue(def);
+  }
+
+  public boolean getBool(ConfigPath path) {
+    return getBool(path, false);
+  }
+
+  public boolean getBool(ConfigPath path, boolean def) {
+    final ConfigSection section = getSection(path);
+    if(section == null) return def;
+
+    return section.boolValue(def);
+  }
+
+  public long getLong(String node) {
+    return getLong(node, 0L);
+  }
+
+  public long getLong(String node, long def) {
+    final ConfigSection section = getSection(node);
+    if(section == null) return def;
+
+    return section.longValue(def);
+  }
+
+  public long getLong(ConfigPath path) {
+    return getLong(path, 0L);
+  }
+
+  public long getLong(ConfigPath path, long def) {
+    final ConfigSection section = getSection(path);
+    if(section == null) return def;
+
+    return section.longValue(def);
+  }
+
+  public byte getByte(String node) {
+    return getByte(node, (byte)0);
+  }
+
+  public byte getByte(String node, byte def) {
+    final ConfigSection section = getSection(node);
+    if(section == null) return def;
+
+    return section.byteValue(def);
+  }
+
+  public byte getByte(ConfigPath path) {
+    return getByte(path, (byte)0);
+  }
+
+  public byte getByte(ConfigPath path, byte def) {
+    final ConfigSection section = getSection(path);
+    if(section == null) return def;
+
+    return section.byteValue(def);
+  }
+
+  public double getDouble(String node) {
+    return getDouble(node, 0.0);
+  }
+
+  public double getDouble(String node, double def) {
+    final ConfigSection section = getSection(node);
+    if(section == null) return def;
+
+    return section.doubleValue(def);
+  }
+
+  public double getDouble(ConfigPath path) {
+    return getDouble(path, 0.0);
+  }
+
+  public double getDouble(ConfigPath path, double def) {
+    final ConfigSection section = getSection(path);
+    if(section == null) return def;
+
+    return section.doubleValue(def);
+  }
+
+  public short getShort(String node) {
+    return getShort(node, (short)0);
+  }
+
+  public short getShort(String node, short def) {
+    final ConfigSection section = getSection(node);
+    if(section == null) return def;
+
+    return section.shortValue(def);
+  }
+
+  public short getShort(ConfigPath path) {
+    return getShort(path, (short)0);
+  }
+
+  public short getShort(ConfigPath path, short def) {
+    final ConfigSection section = getSection(path);
+    if(section == null) return def;
+
+    return section.shortValue(def);
   }
 
   public float getFloat(String node) {
@@ -425,11 +1230,18 @@ public class ConfigSection {
     final ConfigSection section = getSection(node);
     if(section == null) return def;
 
-    try {
-      return Float.valueOf(section.getBaseNode().getValues().get(0).getValue());
-    } catch(Exception ignore) {
-      return def;
-    }
+    return section.floatValue(def);
+  }
+
+  public float getFloat(ConfigPath path) {
+    return getFloat(path, 0.0f);
+  }
+
+  public float getFloat(ConfigPath path, float def) {
+    final ConfigSection section = getSection(path);
+    if(section == null) return def;
+
+    return section.floatValue(def);
   }
 
   public BigDecimal getBigDecimal(String node) {
@@ -440,11 +1252,18 @@ public class ConfigSection {
     final ConfigSection section = getSection(node);
     if(section == null) return def;
 
-    try {
-      return new BigDecimal(section.getBaseNode().getValues().get(0).getValue());
-    } catch(Exception ignore) {
-      return def;
-    }
+    return section.bigDecimalValue(def);
+  }
+
+  public BigDecimal getBigDecimal(ConfigPath path) {
+    return getBigDecimal(path, BigDecimal.ZERO);
+  }
+
+  public BigDecimal getBigDecimal(ConfigPath path, BigDecimal def) {
+    final ConfigSection section = getSection(path);
+    if(section == null) return def;
+
+    return section.bigDecimalValue(def);
   }
 
   public String getString(String node) {
@@ -455,25 +1274,493 @@ public class ConfigSection {
     final ConfigSection section = getSection(node);
     if(section == null) return def;
 
-    debug("Value: " + section.getBaseNode().getValues().get(0).getValue());
-    
+    return section.getBaseNode().getValues().get(0).getValue();
+  }
+
+  public String getString(ConfigPath path) {
+    return getString(path, "");
+  }
+
+  public String getString(ConfigPath path, String def) {
+    final ConfigSection section = getSection(path);
+    if(section == null) return def;
+
     return section.getBaseNode().getValues().get(0).getValue();
   }
 
   public LinkedList<String> getStringList(String node) {
+    return stringList(getSection(node));
+  }
+
+  public LinkedList<String> getStringList(ConfigPath path) {
+    return stringList(getSection(path));
+  }
+
+  /**
+   * Returns the values of the specified node as an unmodifiable, random-access list. The list is built once
+   * and shared until the values of the node change, so unlike {@link #getStringList(String)} repeated calls
+   * don't copy anything.
+   * @param node The node to get the values of.
+   * @return The values, which are empty if the node doesn't exist.
+   */
+  public List<String> getList(String node) {
+    final ConfigSection section = getSection(node);
+    return (section == null)? Collections.emptyList() : section.listValue();
+  }
+
+  public List<String> getList(ConfigPath path) {
+    final ConfigSection section = getSection(path);
+    return (section == null)? Collections.emptyList() : section.listValue();
+  }
+
+  /**
+   * Returns the values of the specified node as an unmodifiable set, in file order, for membership checks on
+   * large lists. The set is built once and shared until the values of the node change.
+   * @param node The node to get the values of.
+   * @return The values, which are empty if the node doesn't exist.
+   */
+  public Set<String> getStringSet(String node) {
+    final ConfigSection section = getSection(node);
+    return (section == null)? Collections.emptySet() : section.setValue();
+  }
+
+  public Set<String> getStringSet(ConfigPath path) {
+    final ConfigSection section = getSection(path);
+    return (section == null)? Collections.emptySet() : section.setValue();
+  }
+
+  /**
+   * Returns the values of the specified node parsed as ints, as an unmodifiable, random-access list. The values
+   * are parsed once and shared until they change, and {@link IntList#getInt(int)} reads them without boxing.
+   * Values that aren't valid ints are left out, so when any are invalid, the indexes of the list don't match
+   * those of {@link #getStringList(String)}.
+   * @param node The node to get the values of.
+   * @return The parsed values, which are empty if the node doesn't exist.
+   */
+  public IntList getIntList(String node) {
     final ConfigSection section = getSection(node);
+    return (section == null)? IntList.EMPTY : section.intList();
+  }
+
+  public IntList getIntList(ConfigPath path) {
+    final ConfigSection section = getSection(path);
+    return (section == null)? IntList.EMPTY : section.intList();
+  }
+
+  /**
+   * Returns the values of the specified node parsed as ints, like {@link #getIntList(String)}, in a new array.
+   * Use {@link #getIntList(String)} to read them without copying.
+   * @param node The node to get the values of.
+   * @return A copy of the parsed values, which is empty if the node doesn't exist.
+   */
+  public int[] getIntArray(String node) {
+    return getIntList(node).toIntArray();
+  }
+
+  public int[] getIntArray(ConfigPath path) {
+    return getIntList(path).toIntArray();
+  }
+
+  /**
+   * Returns the values of the specified node parsed as longs, as an unmodifiable, random-access list. The values
+   * are parsed once and shared until they change, and {@link LongList#getLong(int)} reads them without boxing.
+   * Values that aren't valid longs are left out, so when any are invalid, the indexes of the list don't match
+   * those of {@link #getStringList(String)}.
+   * @param node The node to get the values of.
+   * @return The parsed values, which are empty if the node doesn't exist.
+   */
+  public LongList getLongList(String node) {
+    final ConfigSection section = getSection(node);
+    return (section == null)? LongList.EMPTY : section.longList();
+  }
+
+  public LongList getLongList(ConfigPath path) {
+    final ConfigSection section = getSection(path);
+    return (section == null)? LongList.EMPTY : section.longList();
+  }
+
+  public long[] getLongArray(String node) {
+    return getLongList(node).toLongArray();
+  }
+
+  public long[] getLongArray(ConfigPath path) {
+    return getLongList(path).toLongArray();
+  }
+
+  /**
+   * Returns the values of the specified node parsed as doubles, as an unmodifiable, random-access list. The
+   * values are parsed once and shared until they change, and {@link DoubleList#getDouble(int)} reads them
+   * without boxing. Values that aren't valid doubles are left out, so when any are invalid, the indexes of the
+   * list don't match those of {@link #getStringList(String)}.
+   * @param node The node to get the values of.
+   * @return The parsed values, which are empty if the node doesn't exist.
+   */
+  public DoubleList getDoubleList(String node) {
+    final ConfigSection section = getSection(node);
+    return (section == null)? DoubleList.EMPTY : section.doubleList();
+  }
+
+  public DoubleList getDoubleList(ConfigPath path) {
+    final ConfigSection section = getSection(path);
+    return (section == null)? DoubleList.EMPTY : section.doubleList();
+  }
+
+  public double[] getDoubleArray(String node) {
+    return getDoubleList(node).toDoubleArray();
+  }
+
+  public double[] getDoubleArray(ConfigPath path) {
+    return getDoubleList(path).toDoubleArray();
+  }
+
+  /**
+   * Returns the parsed values of this section, which are dropped when its version changes, or when the values of
+   * its node were replaced directly without {@link #invalidateCache() invalidating} them.
+   */
+  private ParsedValues parsed() {
+    final int current = version;
+    final List<YamlValue> source = baseNode.getValues();
+    ParsedValues values = parsed;
+    if(values == null || values.version != current || values.source != source) {
+      values = new ParsedValues(current, source);
+      parsed = values;
+    }
+    return values;
+  }
+
+  /**
+   * Returns the first value of this section, or null if it has none.
+   */
+  private String rawValue() {
+    final List<YamlValue> values = baseNode.getValues();
+    return (values.isEmpty())? null : values.get(0).getValue();
+  }
+
+  private int intValue(int def) {
+    final ParsedValues values = parsed();
+    if(!values.has(ParsedValues.INT)) {
+      final ValueParser parser = PARSER.get();
+      if(parser.parseLong(rawValue(), Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+        values.intValue = (int)parser.getLong();
+      } else {
+        values.fail(ParsedValues.INT);
+        parseFailed("int");
+      }
+      values.mark(ParsedValues.INT);
+    }
+    return (values.failed(ParsedValues.INT))? def : values.intValue;
+  }
+
+  private long longValue(long def) {
+    final ParsedValues values = parsed();
+    if(!values.has(ParsedValues.LONG)) {
+      final ValueParser parser = PARSER.get();
+      if(parser.parseLong(rawValue(), Long.MIN_VALUE, Long.MAX_VALUE)) {
+        values.longValue = parser.getLong();
+      } else {
+        values.fail(ParsedValues.LONG);
+        parseFailed("long");
+      }
+      values.mark(ParsedValues.LONG);
+    }
+    return (values.failed(ParsedValues.LONG))? def : values.longValue;
+  }
+
+  private short shortValue(short def) {
+    final ParsedValues values = parsed();
+    if(!values.has(ParsedValues.SHORT)) {
+      final ValueParser parser = PARSER.get();
+      if(parser.parseLong(rawValue(), Short.MIN_VALUE, Short.MAX_VALUE)) {
+        values.shortValue = (short)parser.getLong();
+      } else {
+        values.fail(ParsedValues.SHORT);
+        parseFailed("short");
+      }
+      values.mark(ParsedValues.SHORT);
+    }
+    return (values.failed(ParsedValues.SHORT))? def : values.shortValue;
+  }
+
+  private byte byteValue(byte def) {
+    final ParsedValues values = parsed();
+    if(!values.has(ParsedValues.BYTE)) {
+      final ValueParser parser = PARSER.get();
+      if(parser.parseLong(rawValue(), Byte.MIN_VALUE, Byte.MAX_VALUE)) {
+        values.byteValue = (byte)parser.getLong();
+      } else {
+        values.fail(ParsedValues.BYTE);
+        parseFailed("byte");
+      }
+      values.mark(ParsedValues.BYTE);
+    }
+    return (values.failed(ParsedValues.BYTE))? def : values.byteValue;
+  }
+
+  private boolean boolValue(boolean def) {
+    final ParsedValues values = parsed();
+    if(!values.has(ParsedValues.BOOL)) {
+      final ValueParser parser = PARSER.get();
+      if(parser.parseBoolean(rawValue())) {
+        values.boolValue = parser.getBoolean();
+      } else {
+        values.fail(ParsedValues.BOOL);
+        parseFailed("boolean");
+      }
+      values.mark(ParsedValues.BOOL);
+    }
+    return (values.failed(ParsedValues.BOOL))? def : values.boolValue;
+  }
+
+  private double doubleValue(double def) {
+    final ParsedValues values = parsed();
+    if(!values.has(ParsedValues.DOUBLE)) {
+      final ValueParser parser = PARSER.get();
+      if(parser.parseDouble(rawValue())) {
+        values.doubleValue = parser.getDouble();
+      } else {
+        values.fail(ParsedValues.DOUBLE);
+        parseFailed("double");
+      }
+      values.mark(ParsedValues.DOUBLE);
+    }
+    return (values.failed(ParsedValues.DOUBLE))? def : values.doubleValue;
+  }
+
+  private float floatValue(float def) {
+    final ParsedValues values = parsed();
+    if(!values.has(ParsedValues.FLOAT)) {
+      final ValueParser parser = PARSER.get();
+      if(parser.parseFloat(rawValue())) {
+        values.floatValue = parser.getFloat();
+      } else {
+        values.fail(ParsedValues.FLOAT);
+        parseFailed("float");
+      }
+      values.mark(ParsedValues.FLOAT);
+    }
+    return (values.failed(ParsedValues.FLOAT))? def : values.floatValue;
+  }
+
+  private BigDecimal bigDecimalValue(BigDecimal def) {
+    final ParsedValues values = parsed();
+    if(!values.has(ParsedValues.DECIMAL)) {
+      final String raw = rawValue();
+      if(PARSER.get().isDecimal(raw)) {
+        try {
+          values.decimalValue = new BigDecimal(raw);
+        } catch(NumberFormatException ignore) {
+          //Only reached for exponents outside the range of an int.
+          values.fail(ParsedValues.DECIMAL);
+          parseFailed("BigDecimal");
+        }
+      } else {
+        values.fail(ParsedValues.DECIMAL);
+        parseFailed("BigDecimal");
+      }
+      values.mark(ParsedValues.DECIMAL);
+    }
+    return (values.failed(ParsedValues.DECIMAL))? def : values.decimalValue;
+  }
+
+  private static LinkedList<String> stringList(ConfigSection section) {
     if(section == null) return new LinkedList<>();
 
-    LinkedList<String> stringList = new LinkedList<>();
+    return new LinkedList<>(section.listValue());
+  }
+
+  private List<String> listValue() {
+    final ParsedValues values = parsed();
+    if(!values.has(ParsedValues.LIST)) {
+      final List<YamlValue> raw = baseNode.getValues();
+      final ArrayList<String> strings = new ArrayList<>(raw.size());
+      for(YamlValue value : raw) {
+        strings.add(value.getValue());
+      }
+      values.strings = Collections.unmodifiableList(strings);
+      values.mark(ParsedValues.LIST);
+    }
+    return values.strings;
+  }
+
+  private Set<String> setValue() {
+    final ParsedValues values = parsed();
+    if(!values.has(ParsedValues.SET)) {
+      values.stringSet = Collections.unmodifiableSet(new LinkedHashSet<>(listValue()));
+      values.mark(ParsedValues.SET);
+    }
+    return values.stringSet;
+  }
+
+  private IntList intList() {
+    return parsedInts().intList;
+  }
+
+  private ParsedValues parsedInts() {
+    final ParsedValues values = parsed();
+    if(!values.has(ParsedValues.INTS)) {
+      final ValueParser parser = PARSER.get();
+      final List<YamlValue> raw = baseNode.getValues();
+      final int[] ints = new int[raw.size()];
+      int count = 0;
+      for(YamlValue value : raw) {
+        if(parser.parseLong(value.getValue(), Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+          ints[count++] = (int)parser.getLong();
+        } else {
+          parseFailed("int");
+        }
+      }
+      values.intList = new IntList((count == ints.length)? ints : Arrays.copyOf(ints, count));
+      values.mark(ParsedValues.INTS);
+    }
+    return values;
+  }
+
+  private LongList longList() {
+    return parsedLongs().longList;
+  }
 
-    for(YamlValue value : section.getBaseNode().getValues()) {
-      stringList.add(value.getValue());
+  private ParsedValues parsedLongs() {
+    final ParsedValues values = parsed();
+    if(!values.has(ParsedValues.LONGS)) {
+      final ValueParser parser = PARSER.get();
+      final List<YamlValue> raw = baseNode.getValues();
+      final long[] longs = new long[raw.size()];
+      int count = 0;
+      for(YamlValue value : raw) {
+        if(parser.parseLong(value.getValue(), Long.MIN_VALUE, Long.MAX_VALUE)) {
+          longs[count++] = parser.getLong();
+        } else {
+          parseFailed("long");
+        }
+      }
+      values.longList = new LongList((count == longs.length)? longs : Arrays.copyOf(longs, count));
+      values.mark(ParsedValues.LONGS);
     }
-    
-    return stringList;
+    return values;
   }
 
-  private void debug(String message) {
-    if(debug) System.out.println(message);
+  private DoubleList doubleList() {
+    return parsedDoubles().doubleList;
+  }
+
+  private ParsedValues parsedDoubles() {
+    final ParsedValues values = parsed();
+    if(!values.has(ParsedValues.DOUBLES)) {
+      final ValueParser parser = PARSER.get();
+      final List<YamlValue> raw = baseNode.getValues();
+      final double[] doubles = new double[raw.size()];
+      int count = 0;
+      for(YamlValue value : raw) {
+        if(parser.parseDouble(value.getValue())) {
+          doubles[count++] = parser.getDouble();
+        } else {
+          parseFailed("double");
+        }
+      }
+      values.doubleList = new DoubleList((count == doubles.length)? doubles : Arrays.copyOf(doubles, count));
+      values.mark(ParsedValues.DOUBLES);
+    }
+    return values;
+  }
+
+  private void parseFailed(String type) {
+    if(ConfigMetrics.enabled) ConfigMetrics.parseFailure(baseNode.getNode(), type);
+  }
+
+  /**
+   * Holds the typed values parsed from the first value of a {@link ConfigSection} and the lists built from all
+   * of its values, along with which types have been attempted and which of those failed to parse.
+   *
+   * Both are kept as bits of one volatile state, which is only ever changed by compare-and-set, so threads that
+   * parse different types of the same section at once never drop each other's bits. Each slot is written
+   * before its bit is set, so a reader that sees the bit also sees the slot.
+   */
+  private static final class ParsedValues {
+    private static final int INT = 1;
+    private static final int DOUBLE = 1 << 1;
+    private static final int SHORT = 1 << 2;
+    private static final int FLOAT = 1 << 3;
+    private static final int DECIMAL = 1 << 4;
+    private static final int LONG = 1 << 5;
+    private static final int BYTE = 1 << 6;
+    private static final int BOOL = 1 << 7;
+    private static final int LIST = 1 << 8;
+    private static final int SET = 1 << 9;
+    private static final int INTS = 1 << 10;
+    private static final int LONGS = 1 << 11;
+    private static final int DOUBLES = 1 << 12;
+
+    /**
+     * The failed bit of a type is its parsed bit shifted by this amount.
+     */
+    private static final int FAILED = 16;
+
+    private static final AtomicIntegerFieldUpdater<ParsedValues> STATE =
+        AtomicIntegerFieldUpdater.newUpdater(ParsedValues.class, "state");
+
+    private final int version;
+
+    /**
+     * The values of the node these were parsed from.
+     */
+    private final List<YamlValue> source;
+
+    private volatile int state = 0;
+
+    private int intValue;
+    private double doubleValue;
+    private short shortValue;
+    private float floatValue;
+    private BigDecimal decimalValue;
+    private long longValue;
+    private byte byteValue;
+    private boolean boolValue;
+
+    private List<String> strings;
+    private Set<String> stringSet;
+    private IntList intList;
+    private LongList longList;
+    private DoubleList doubleList;
+
+    ParsedValues(int version, List<YamlValue> source) {
+      this.version = version;
+      this.source = source;
+    }
+
+    /**
+     * Returns whether the specified type has been parsed, successfully or not.
+     */
+    boolean has(int type) {
+      return (state & type) != 0;
+    }
+
+    /**
+     * Returns whether parsing the specified type failed. Only meaningful once {@link #has(int)} returns true.
+     */
+    boolean failed(int type) {
+      return (state & (type << FAILED)) != 0;
+    }
+
+    /**
+     * Used to mark the specified type as parsed, after its slot was written.
+     */
+    void mark(int type) {
+      set(type);
+    }
+
+    /**
+     * Used to mark the specified type as failed, before it's {@link #mark(int) marked} as parsed.
+     */
+    void fail(int type) {
+      set(type << FAILED);
+    }
+
+    private void set(int bits) {
+      int current;
+      do {
+        current = state;
+        if((current & bits) == bits) return;
+      } while(!STATE.compareAndSet(this, current, current | bits));
+    }
   }
 }
\ No newline at end of file
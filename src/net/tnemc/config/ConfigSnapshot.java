@@ -0,0 +1,279 @@
+package net.tnemc.config;
+
+import com.hellyard.cuttlefish.CuttlefishBuilder;
+import com.hellyard.cuttlefish.grammar.yaml.YamlNode;
+import com.hellyard.cuttlefish.grammar.yaml.YamlValue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * A compact binary snapshot of the {@link YamlNode nodes} parsed from a configuration file, stored next to the
+ * file as "&lt;name&gt;.snapshot". The snapshot records the size, modification time and CRC32 of the file it was
+ * taken from, and is only used while the size and modification time still match. The CRC32 is checked as well
+ * when the modification time alone can't rule out a later write.
+ *
+ * Every property of each node is stored, including comments, indentation, line numbers and value types, so the
+ * nodes read from a snapshot are equal to the ones the parser would produce.
+ */
+public final class ConfigSnapshot {
+
+  private static final int MAGIC = 0x544E4353;
+  private static final int VERSION = 1;
+
+  /**
+   * The coarsest modification time resolution of the file systems we expect, in milliseconds. A file modified
+   * within this long before its snapshot was written is hashed, since a later write could keep its time.
+   */
+  private static final long TIMESTAMP_RESOLUTION = 2000;
+
+  private ConfigSnapshot() {
+  }
+
+  /**
+   * Returns the snapshot file used for the specified configuration file.
+   * @param source The configuration file.
+   * @return The snapshot file next to it.
+   */
+  public static File snapshotFile(File source) {
+    final File absolute = source.getAbsoluteFile();
+    return new File(absolute.getParentFile(), absolute.getName() + ".snapshot");
+  }
+
+  /**
+   * Loads the {@link YamlNode nodes} of the specified configuration file, from its snapshot if that's still
+   * valid, otherwise by parsing the file and writing a new snapshot. The file is only read and hashed if its
+   * size and modification time match the snapshot, but it was modified too shortly before the snapshot was
+   * written for its modification time to tell the two apart, or if the snapshot can't be used.
+   * @param source The configuration file.
+   * @return The nodes of the file, or null if the file couldn't be read.
+   */
+  @SuppressWarnings("unchecked")
+  public static LinkedList<YamlNode> load(File source) {
+    final long modified = source.lastModified();
+    final File snapshot = snapshotFile(source);
+    final long[] header = header(snapshot);
+    final boolean matches = header != null && modified != 0 && header[0] == source.length() && header[1] == modified;
+
+    if(matches && snapshot.lastModified() - modified > TIMESTAMP_RESOLUTION) {
+      final LinkedList<YamlNode> cached = read(snapshot, header[0], modified, header[2]);
+      if(cached != null) return cached;
+    }
+
+    final ByteBuffer bytes;
+    try {
+      bytes = ConfigInput.read(source.toPath());
+    } catch(IOException ignore) {
+      return null;
+    }
+    final int size = bytes.remaining();
+
+    final CRC32 crc = new CRC32();
+    crc.update(bytes.duplicate());
+    final long hash = crc.getValue();
+
+    if(matches) {
+      final LinkedList<YamlNode> cached = read(snapshot, size, modified, hash);
+      if(cached != null) return cached;
+    }
+
+    final LinkedList<YamlNode> nodes;
+    final long start = ConfigMetrics.start();
+    try {
+      nodes = (LinkedList<YamlNode>)new CuttlefishBuilder(ConfigInput.decode(bytes), "yaml").build().getNodes();
+    } catch(IOException ignore) {
+      return null;
+    } finally {
+      ConfigMetrics.finish(ConfigMetrics.Phase.PARSE, start);
+    }
+    write(snapshot, nodes, size, modified, hash);
+    return nodes;
+  }
+
+  /**
+   * Reads the size, modification time and CRC32 of the file a snapshot was taken from, without reading the rest
+   * of the snapshot.
+   * @return The size, modification time and CRC32, or null if there's no usable snapshot.
+   */
+  private static long[] header(File snapshot) {
+    if(!snapshot.exists()) return null;
+
+    try(DataInputStream in = new DataInputStream(new FileInputStream(snapshot))) {
+      if(in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+      return new long[] { in.readLong(), in.readLong(), in.readLong() };
+    } catch(Exception ignore) {
+      return null;
+    }
+  }
+
+  private static LinkedList<YamlNode> read(File snapshot, long size, long modified, long hash) {
+    if(!snapshot.exists()) return null;
+
+    //No count or length in a valid snapshot can exceed its own size, so anything larger is corrupt.
+    final long limit = snapshot.length();
+    try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshot)))) {
+      if(in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+      if(in.readLong() != size || in.readLong() != modified || in.readLong() != hash) return null;
+
+      final String[] strings = new String[count(in, limit)];
+      for(int i = 0; i < strings.length; i++) {
+        final byte[] bytes = new byte[count(in, limit)];
+        in.readFully(bytes);
+        strings[i] = new String(bytes, StandardCharsets.UTF_8);
+      }
+
+      final YamlNode[] nodes = new YamlNode[count(in, limit)];
+      final LinkedList<YamlNode> result = new LinkedList<>();
+      for(int i = 0; i < nodes.length; i++) {
+        final int parent = in.readInt();
+        final int indentation = in.readInt();
+        final int line = in.readInt();
+        final String raw = string(strings, in.readInt());
+        final LinkedList<String> comments = new LinkedList<>(readStrings(in, strings, limit));
+        final String key = string(strings, in.readInt());
+        final String path = string(strings, in.readInt());
+
+        final YamlNode node = new YamlNode((parent < 0)? null : nodes[parent], indentation, line, raw, comments, key, path);
+
+        final int valueCount = count(in, limit);
+        final List<YamlValue> values = new LinkedList<>();
+        for(int v = 0; v < valueCount; v++) {
+          final ArrayList<String> valueComments = readStrings(in, strings, limit);
+          values.add(new YamlValue(valueComments, string(strings, in.readInt()), string(strings, in.readInt())));
+        }
+        node.setValues(values);
+
+        nodes[i] = node;
+        result.add(node);
+      }
+      return result;
+    } catch(Exception ignore) {
+      return null;
+    }
+  }
+
+  private static boolean write(File snapshot, LinkedList<YamlNode> nodes, long size, long modified, long hash) {
+    final Map<String, Integer> strings = new LinkedHashMap<>();
+    final Map<YamlNode, Integer> indexes = new IdentityHashMap<>();
+    for(YamlNode node : nodes) {
+      indexes.put(node, indexes.size());
+      intern(strings, node.getLine());
+      intern(strings, node.getKey());
+      intern(strings, node.getNode());
+      for(String comment : node.getComments()) intern(strings, comment);
+      for(YamlValue value : node.getValues()) {
+        for(String comment : value.getComments()) intern(strings, comment);
+        intern(strings, value.getValue());
+        intern(strings, value.getType());
+      }
+    }
+
+    File temp = null;
+    try {
+      temp = File.createTempFile(CommentedConfiguration.TEMP_PREFIX + snapshot.getName(), ".tmp", snapshot.getParentFile());
+      try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(size);
+        out.writeLong(modified);
+        out.writeLong(hash);
+
+        out.writeInt(strings.size());
+        for(String str : strings.keySet()) {
+          final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+          out.writeInt(bytes.length);
+          out.write(bytes);
+        }
+
+        out.writeInt(nodes.size());
+        for(YamlNode node : nodes) {
+          final Integer parent = (node.getParent() == null)? null : indexes.get(node.getParent());
+          out.writeInt((parent == null)? -1 : parent);
+          out.writeInt(node.getIndentation());
+          out.writeInt(node.getLineNumber());
+          out.writeInt(index(strings, node.getLine()));
+          writeStrings(out, strings, node.getComments());
+          out.writeInt(index(strings, node.getKey()));
+          out.writeInt(index(strings, node.getNode()));
+
+          out.writeInt(node.getValues().size());
+          for(YamlValue value : node.getValues()) {
+            writeStrings(out, strings, value.getComments());
+            out.writeInt(index(strings, value.getValue()));
+            out.writeInt(index(strings, value.getType()));
+          }
+        }
+      }
+      if(ConfigMetrics.enabled) ConfigMetrics.written(temp.length());
+
+      CommentedConfiguration.replace(temp.toPath(), snapshot.toPath());
+      return true;
+    } catch(Exception ignore) {
+      return false;
+    } finally {
+      if(temp != null && temp.exists()) temp.delete();
+    }
+  }
+
+  private static void intern(Map<String, Integer> strings, String str) {
+    if(str != null && !strings.containsKey(str)) {
+      strings.put(str, strings.size());
+    }
+  }
+
+  private static int index(Map<String, Integer> strings, String str) {
+    return (str == null)? -1 : strings.get(str);
+  }
+
+  private static String string(String[] strings, int index) {
+    return (index < 0)? null : strings[index];
+  }
+
+  private static void writeStrings(DataOutputStream out, Map<String, Integer> strings, Collection<String> values) throws IOException {
+    out.writeInt(values.size());
+    for(String value : values) {
+      out.writeInt(index(strings, value));
+    }
+  }
+
+  private static int count(DataInputStream in, long limit) throws IOException {
+    final int count = in.readInt();
+    if(count < 0 || count > limit) {
+      throw new IOException("The snapshot holds a count of " + count + ", which exceeds its size.");
+    }
+    return count;
+  }
+
+  private static ArrayList<String> readStrings(DataInputStream in, String[] strings, long limit) throws IOException {
+    final int count = count(in, limit);
+    final ArrayList<String> values = new ArrayList<>(count);
+    for(int i = 0; i < count; i++) {
+      values.add(string(strings, in.readInt()));
+    }
+    return values;
+  }
+}
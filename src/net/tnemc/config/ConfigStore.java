@@ -0,0 +1,336 @@
+package net.tnemc.config;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Keeps a bounded cache of {@link CommentedConfiguration configurations} over a directory of per-entity files,
+ * i.e. one file per account, named after its key. Missing configurations are loaded on an executor, and
+ * concurrent requests for the same key share a single load. Once the cache is full, the least recently used
+ * configuration is evicted, and saved first if it has unsaved modifications.
+ *
+ * A configuration that was evicted isn't saved by this store anymore, so callers should request it again rather
+ * than hold on to it. Requesting a key while its eviction is still being written returns the same instance.
+ */
+public final class ConfigStore {
+
+  private final Path directory;
+  private final int maximumSize;
+  private final ExecutorService executor;
+  private final boolean ownsExecutor;
+
+  private final Object lock = new Object();
+
+  /**
+   * The loaded configurations, from least to most recently used.
+   */
+  private final LinkedHashMap<String, CommentedConfiguration> cache = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, CompletableFuture<CommentedConfiguration>> loading = new ConcurrentHashMap<>();
+
+  /**
+   * The evicted configurations whose modifications are still being written.
+   */
+  private final Map<String, CommentedConfiguration> evicting = new ConcurrentHashMap<>();
+
+  private volatile SharedDefaults defaults = null;
+  private volatile boolean lazy = false;
+
+  private long hits = 0;
+  private long misses = 0;
+  private long evictions = 0;
+
+  /**
+   * Constructor for {@link ConfigStore}, which loads on as many threads as there are processors.
+   * @param directory The directory that holds the configuration files.
+   * @param maximumSize The maximum number of configurations to keep loaded.
+   */
+  public ConfigStore(Path directory, int maximumSize) {
+    this(directory, maximumSize, new ForkJoinPool(Runtime.getRuntime().availableProcessors()), true);
+  }
+
+  /**
+   * Constructor for {@link ConfigStore}.
+   * @param directory The directory that holds the configuration files.
+   * @param maximumSize The maximum number of configurations to keep loaded.
+   * @param executor The executor to load and save on, which isn't shut down by this store.
+   */
+  public ConfigStore(Path directory, int maximumSize, ExecutorService executor) {
+    this(directory, maximumSize, executor, false);
+  }
+
+  private ConfigStore(Path directory, int maximumSize, ExecutorService executor, boolean ownsExecutor) {
+    if(maximumSize <= 0) {
+      throw new IllegalArgumentException("The maximum size of a store must be positive.");
+    }
+    this.directory = directory.toAbsolutePath().normalize();
+    this.maximumSize = maximumSize;
+    this.executor = executor;
+    this.ownsExecutor = ownsExecutor;
+  }
+
+  /**
+   * Used to set the {@link SharedDefaults shared defaults} that configurations loaded afterwards fall back to.
+   * @param defaults The {@link SharedDefaults shared defaults}, or null for none.
+   */
+  public void setDefaults(SharedDefaults defaults) {
+    this.defaults = defaults;
+  }
+
+  /**
+   * Used to enable or disable {@link CommentedConfiguration#setLazy(boolean) lazy loading} for configurations
+   * loaded afterwards.
+   * @param lazy Whether to load lazily.
+   */
+  public void setLazy(boolean lazy) {
+    this.lazy = lazy;
+  }
+
+  /**
+   * Returns the configuration of the specified key, loading it if it isn't loaded yet. A configuration whose file
+   * doesn't exist is created.
+   * @param key The key of the configuration, which is also the name of its file without the ".yml" extension.
+   * @return A future that completes with the configuration once it's loaded.
+   * @throws IllegalArgumentException If the key isn't a plain file name.
+   */
+  public CompletableFuture<CommentedConfiguration> get(String key) {
+    final Path file = file(key);
+
+    final CompletableFuture<CommentedConfiguration> future;
+    synchronized(lock) {
+      final CommentedConfiguration cached = cache.get(key);
+      if(cached != null) {
+        hits++;
+        return CompletableFuture.completedFuture(cached);
+      }
+
+      final CompletableFuture<CommentedConfiguration> pending = loading.get(key);
+      if(pending != null) {
+        hits++;
+        return pending;
+      }
+
+      final CommentedConfiguration written = evicting.get(key);
+      if(written != null) {
+        hits++;
+        return CompletableFuture.completedFuture(admit(key, written));
+      }
+
+      misses++;
+      future = new CompletableFuture<>();
+      loading.put(key, future);
+    }
+
+    //The configuration is admitted before the future completes, so callers that resume on it find it cached.
+    try {
+      executor.execute(()->{
+        final CommentedConfiguration config;
+        try {
+          config = load(file);
+        } catch(Throwable e) {
+          loading.remove(key, future);
+          future.completeExceptionally(e);
+          return;
+        }
+
+        final CommentedConfiguration admitted;
+        synchronized(lock) {
+          admitted = admit(key, config);
+          loading.remove(key, future);
+        }
+        future.complete(admitted);
+      });
+    } catch(RejectedExecutionException e) {
+      loading.remove(key, future);
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  /**
+   * Returns the configuration of the specified key, waiting for it to load if needed.
+   * @param key The key of the configuration.
+   * @return The configuration.
+   * @throws IllegalArgumentException If the key isn't a plain file name.
+   */
+  public CommentedConfiguration load(String key) {
+    return get(key).join();
+  }
+
+  /**
+   * Returns the configuration of the specified key if it's loaded, without loading it.
+   * @param key The key of the configuration.
+   * @return The configuration, or null if it isn't loaded.
+   */
+  public CommentedConfiguration getIfLoaded(String key) {
+    synchronized(lock) {
+      final CommentedConfiguration cached = cache.get(key);
+      return (cached != null)? cached : evicting.get(key);
+    }
+  }
+
+  /**
+   * Evicts the configuration of the specified key, saving it first if it has unsaved modifications.
+   * @param key The key of the configuration.
+   * @return A future that completes with whether the configuration is up to date on disk, which is true if it
+   * wasn't loaded.
+   */
+  public CompletableFuture<Boolean> evict(String key) {
+    final CommentedConfiguration config;
+    synchronized(lock) {
+      config = cache.remove(key);
+      if(config == null) return CompletableFuture.completedFuture(true);
+      evictions++;
+      evicting.put(key, config);
+    }
+    return CompletableFuture.supplyAsync(()->write(key, config), executor);
+  }
+
+  /**
+   * Saves every loaded configuration that has unsaved modifications on the calling thread, without evicting
+   * any of them.
+   * @return True if every configuration is up to date on disk, otherwise false.
+   */
+  public boolean saveAll() {
+    final List<CommentedConfiguration> loaded;
+    synchronized(lock) {
+      loaded = new ArrayList<>(cache.values());
+    }
+
+    boolean saved = true;
+    for(CommentedConfiguration config : loaded) {
+      if(!config.flush()) saved = false;
+    }
+    return saved;
+  }
+
+  /**
+   * Returns the number of loaded configurations.
+   * @return The number of loaded configurations.
+   */
+  public int size() {
+    synchronized(lock) {
+      return cache.size();
+    }
+  }
+
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * Returns the number of requests that were answered without reading a file, including those that joined a
+   * load already in progress.
+   * @return The number of hits.
+   */
+  public long getHits() {
+    synchronized(lock) {
+      return hits;
+    }
+  }
+
+  /**
+   * Returns the number of requests that started a load.
+   * @return The number of misses.
+   */
+  public long getMisses() {
+    synchronized(lock) {
+      return misses;
+    }
+  }
+
+  public long getEvictions() {
+    synchronized(lock) {
+      return evictions;
+    }
+  }
+
+  /**
+   * Saves every loaded configuration, and shuts down the executor of this store if it was created by it.
+   * @return True if every configuration is up to date on disk, otherwise false.
+   */
+  public boolean shutdown() {
+    final boolean saved = saveAll();
+    if(ownsExecutor) {
+      executor.shutdown();
+    }
+    return saved;
+  }
+
+  /**
+   * Adds a configuration to the cache, evicting the least recently used ones beyond the maximum size. Called
+   * while holding the lock.
+   * @return The configuration that is now cached under the key.
+   */
+  private CommentedConfiguration admit(String key, CommentedConfiguration config) {
+    final CommentedConfiguration existing = cache.putIfAbsent(key, config);
+    if(existing != null) return existing;
+
+    final Iterator<Map.Entry<String, CommentedConfiguration>> it = cache.entrySet().iterator();
+    while(cache.size() > maximumSize && it.hasNext()) {
+      final Map.Entry<String, CommentedConfiguration> eldest = it.next();
+      if(eldest.getKey().equals(key)) continue;
+
+      it.remove();
+      evictions++;
+      evicting.put(eldest.getKey(), eldest.getValue());
+      executor.execute(()->write(eldest.getKey(), eldest.getValue()));
+    }
+    return config;
+  }
+
+  /**
+   * Writes an evicted configuration. If the write fails, the configuration is returned to the cache so its
+   * modifications aren't lost, and is written again on its next eviction.
+   */
+  private boolean write(String key, CommentedConfiguration config) {
+    final boolean saved = config.flush();
+    synchronized(lock) {
+      if(evicting.remove(key, config) && !saved) {
+        cache.putIfAbsent(key, config);
+      }
+    }
+    return saved;
+  }
+
+  private CommentedConfiguration load(Path file) {
+    final CommentedConfiguration config = new CommentedConfiguration(file, null);
+    config.setLazy(lazy);
+
+    final SharedDefaults shared = defaults;
+    if(shared == null) {
+      config.load(false);
+    } else {
+      config.load(shared);
+    }
+    return config;
+  }
+
+  private Path file(String key) {
+    if(key == null || key.isEmpty()) {
+      throw new IllegalArgumentException("The key of a configuration may not be empty.");
+    }
+
+    final Path file = directory.resolve(key + ".yml").normalize();
+    if(!directory.equals(file.getParent())) {
+      throw new IllegalArgumentException("The key " + key + " isn't a plain file name.");
+    }
+    return file;
+  }
+}
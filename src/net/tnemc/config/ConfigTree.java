@@ -0,0 +1,406 @@
+package net.tnemc.config;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * The state shared by every {@link ConfigSection section} of one configuration tree: its modification counter,
+ * its structural generation, which {@link ConfigPath} instances check their cached sections against, and the
+ * deep key indexes of its sections. Changing the structure of one tree leaves the generation and indexes of
+ * every other tree alone.
+ *
+ * A deep key index is built the first time {@link ConfigSection#getKeys(boolean) getKeys(true)} is called on a
+ * section, and is then kept up to date as the tree changes: a change to the children of a section only replaces
+ * the keys below that section in the indexes of the sections above it. The indexes are found by the paths of
+ * their sections, so a change only visits the indexes along its own path rather than every index of the tree.
+ */
+final class ConfigTree {
+
+  private final AtomicLong modifications;
+  private final AtomicLong structure = new AtomicLong();
+
+  /**
+   * The deep key indexes of the sections of this tree. Sections that are discarded take their index with them.
+   */
+  private final Map<ConfigSection, KeyIndex> indexes = new WeakHashMap<>();
+
+  /**
+   * The deep key indexes by the path of their section, so a change only visits the indexes of the sections
+   * above it. Indexes whose section was discarded are dropped once they're {@link #expunge() expunged}.
+   */
+  private final Map<String, List<KeyIndex>> byPath = new HashMap<>();
+  private final ReferenceQueue<ConfigSection> discarded = new ReferenceQueue<>();
+  private volatile boolean indexed = false;
+
+  /**
+   * The paths of the sections whose node path doesn't match their position in the tree, i.e. sections that were
+   * added under another key than the one their node was created with. The indexes find the sections above a
+   * change by these paths instead.
+   */
+  private final Map<ConfigSection, String> moved = new WeakHashMap<>();
+  private volatile boolean hasMoved = false;
+
+  /**
+   * Notified of every section whose children changed, once the indexes of this tree are up to date.
+   */
+  private final List<Consumer<ConfigSection>> listeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Constructor for {@link ConfigTree}.
+   * @param modifications The modification counter of the tree, or null if it doesn't count modifications.
+   */
+  ConfigTree(AtomicLong modifications) {
+    this.modifications = modifications;
+  }
+
+  AtomicLong modifications() {
+    return modifications;
+  }
+
+  /**
+   * Returns the structural generation of this tree, which changes whenever sections are added to, removed from,
+   * moved within or loaded into it.
+   * @return The structural generation.
+   */
+  long generation() {
+    return structure.get();
+  }
+
+  /**
+   * Used to add a listener that is notified of every section of this tree whose children changed.
+   * @param listener The listener.
+   */
+  void listen(Consumer<ConfigSection> listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Used to remove a listener added through {@link #listen(Consumer)}.
+   * @param listener The listener.
+   */
+  void unlisten(Consumer<ConfigSection> listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Returns the relative paths of every descendant of the specified section, in file order, as a live view of
+   * its index. Lookups and the size read the index directly, while iterating copies the paths once per change.
+   * @param section The section, which must belong to this tree.
+   * @return An unmodifiable String Set of the relative paths.
+   */
+  synchronized Set<String> deepKeys(ConfigSection section) {
+    current(section);
+    return new KeyView(section);
+  }
+
+  /**
+   * Used to signal that a section is being added to the specified parent.
+   * @param parent The parent section.
+   * @param key The key of the section within its parent.
+   * @param section The added section.
+   */
+  void added(ConfigSection parent, String key, ConfigSection section) {
+    if(section.getBaseNode() == null) return;
+
+    if(!hasMoved) {
+      final String path = (parent.getBaseNode() == null)? "" : parent.getBaseNode().getNode();
+      if(child(path, key).equals(section.getBaseNode().getNode())) return;
+    }
+    synchronized(this) {
+      track(section, child(path(parent), key));
+    }
+  }
+
+  /**
+   * Records the path of the specified section and its descendants wherever it doesn't match their node path, and
+   * forgets the paths of those that match again.
+   */
+  private void track(ConfigSection section, String path) {
+    if(section.isFrozen() || section.getBaseNode() == null) return;
+
+    if(path.equals(section.getBaseNode().getNode())) {
+      if(moved.isEmpty()) return;
+      moved.remove(section);
+    } else {
+      moved.put(section, path);
+      hasMoved = true;
+    }
+    for(Map.Entry<String, ConfigSection> child : section.children().entrySet()) {
+      track(child.getValue(), path + "." + child.getKey());
+    }
+  }
+
+  /**
+   * Used to signal that the children of the specified section changed, after the change was published. This
+   * moves the structural generation on, and updates the indexes of the section and the sections above it.
+   * @param section The section whose children changed.
+   */
+  void changed(ConfigSection section) {
+    structure.incrementAndGet();
+    if(indexed) updateIndexes(section);
+
+    for(Consumer<ConfigSection> listener : listeners) {
+      listener.accept(section);
+    }
+  }
+
+  /**
+   * Updates the indexes of the specified section and of the sections at every path above it. Indexes at those
+   * paths whose section isn't actually above the changed one, i.e. because it was replaced or removed, don't
+   * contain the change and are left alone.
+   */
+  private void updateIndexes(ConfigSection section) {
+    synchronized(this) {
+      expunge();
+
+      final String path = path(section);
+      update(section, path, "");
+      if(path.isEmpty()) return;
+
+      for(int dot = path.indexOf('.'); dot >= 0; dot = path.indexOf('.', dot + 1)) {
+        update(section, path, path.substring(0, dot));
+      }
+      update(section, path, path);
+    }
+  }
+
+  private void update(ConfigSection section, String path, String ownerPath) {
+    final List<KeyIndex> owners = byPath.get(ownerPath);
+    if(owners == null) return;
+
+    final String relative = (path.equals(ownerPath))? null : relative(path, ownerPath);
+    for(KeyIndex index : owners) {
+      final ConfigSection owner = index.get();
+      if(owner == section) {
+        index.rebuild(owner);
+      } else if(owner != null && relative != null && resolve(owner, relative) == section) {
+        if(!index.refresh(relative, section)) index.rebuild(owner);
+      }
+    }
+  }
+
+  /**
+   * Returns the index of the specified section, building it the first time, and rebuilding it if the section
+   * moved to another path since it was indexed, since the changes made since then were looked for at its new
+   * path.
+   */
+  private KeyIndex current(ConfigSection section) {
+    expunge();
+    KeyIndex index = indexes.get(section);
+    if(index == null) {
+      index = new KeyIndex(section, path(section), discarded);
+      indexes.put(section, index);
+      register(index);
+      indexed = true;
+      return index;
+    }
+
+    final String path = path(section);
+    if(!path.equals(index.path)) {
+      unregister(index);
+      index.path = path;
+      register(index);
+      index.rebuild(section);
+    }
+    return index;
+  }
+
+  private void register(KeyIndex index) {
+    byPath.computeIfAbsent(index.path, path -> new ArrayList<>(1)).add(index);
+  }
+
+  private void unregister(KeyIndex index) {
+    final List<KeyIndex> owners = byPath.get(index.path);
+    if(owners != null && owners.remove(index) && owners.isEmpty()) byPath.remove(index.path);
+  }
+
+  /**
+   * Drops the indexes of sections that were discarded.
+   */
+  private void expunge() {
+    for(Reference<? extends ConfigSection> reference = discarded.poll(); reference != null; reference = discarded.poll()) {
+      unregister((KeyIndex)reference);
+    }
+  }
+
+  /**
+   * Returns the path of the specified section within this tree.
+   */
+  private String path(ConfigSection section) {
+    if(hasMoved) {
+      final String path = moved.get(section);
+      if(path != null) return path;
+    }
+    return (section.getBaseNode() == null)? "" : section.getBaseNode().getNode();
+  }
+
+  private static String child(String path, String key) {
+    return (path.isEmpty())? key : path + "." + key;
+  }
+
+  private static String relative(String path, String ancestor) {
+    return (ancestor.isEmpty())? path : path.substring(ancestor.length() + 1);
+  }
+
+  private static ConfigSection resolve(ConfigSection from, String relative) {
+    ConfigSection section = from;
+    int start = 0;
+    while(section != null && start <= relative.length()) {
+      int end = relative.indexOf('.', start);
+      if(end < 0) end = relative.length();
+
+      section = section.child(relative.substring(start, end));
+      start = end + 1;
+    }
+    return section;
+  }
+
+  /**
+   * A live, unmodifiable view of the deep key index of one section. Every access locks the tree, and iterating
+   * walks a copy of the paths that is shared until the index changes, so the tree may be changed while iterating.
+   */
+  private final class KeyView extends AbstractSet<String> {
+    private final ConfigSection owner;
+
+    KeyView(ConfigSection owner) {
+      this.owner = owner;
+    }
+
+    @Override
+    public boolean contains(Object key) {
+      synchronized(ConfigTree.this) {
+        return current(owner).links.containsKey(key);
+      }
+    }
+
+    @Override
+    public int size() {
+      synchronized(ConfigTree.this) {
+        return current(owner).links.size();
+      }
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      final String[] keys;
+      synchronized(ConfigTree.this) {
+        keys = current(owner).snapshot();
+      }
+      return Collections.unmodifiableList(Arrays.asList(keys)).iterator();
+    }
+  }
+
+  /**
+   * The relative paths of every descendant of one section in file order, linked so the keys below any one of
+   * them can be replaced in place. It only references its section weakly, so the index of a discarded section
+   * is dropped along with it. Only accessed while holding the lock of the tree.
+   */
+  private static final class KeyIndex extends WeakReference<ConfigSection> {
+    private final Map<String, Link> links = new HashMap<>();
+    private final Link head = new Link(null);
+    private String path;
+    private String[] snapshot = null;
+
+    KeyIndex(ConfigSection owner, String path, ReferenceQueue<ConfigSection> queue) {
+      super(owner, queue);
+      this.path = path;
+      rebuild(owner);
+    }
+
+    /**
+     * Returns the paths in file order, which are copied the first time they're needed after a change.
+     */
+    String[] snapshot() {
+      if(snapshot == null) {
+        final String[] keys = new String[links.size()];
+        int i = 0;
+        for(Link link = head.next; link != head; link = link.next) {
+          keys[i++] = link.key;
+        }
+        snapshot = keys;
+      }
+      return snapshot;
+    }
+
+    void rebuild(ConfigSection owner) {
+      links.clear();
+      head.next = head;
+      head.prev = head;
+      insert(head, "", owner);
+      snapshot = null;
+    }
+
+    /**
+     * Replaces the keys below the specified relative path with the current descendants of its section.
+     * @return False if the path isn't in this index.
+     */
+    boolean refresh(String relative, ConfigSection section) {
+      final Link anchor = links.get(relative);
+      if(anchor == null) return false;
+
+      final String prefix = relative + ".";
+      Link link = anchor.next;
+      while(link != head && link.key.startsWith(prefix)) {
+        links.remove(link.key);
+        link = link.next;
+      }
+      anchor.next = link;
+      link.prev = anchor;
+
+      insert(anchor, prefix, section);
+      snapshot = null;
+      return true;
+    }
+
+    /**
+     * Links the descendants of the specified section after the specified link.
+     * @return The last link inserted, or the specified link if the section has no children.
+     */
+    private Link insert(Link after, String prefix, ConfigSection section) {
+      for(Map.Entry<String, ConfigSection> child : section.allChildren().entrySet()) {
+        final String key = prefix + child.getKey();
+        final Link link = new Link(key);
+        link.prev = after;
+        link.next = after.next;
+        after.next.prev = link;
+        after.next = link;
+        links.put(key, link);
+
+        after = insert(link, key + ".", child.getValue());
+      }
+      return after;
+    }
+  }
+
+  private static final class Link {
+    private final String key;
+    private Link prev = this;
+    private Link next = this;
+
+    Link(String key) {
+      this.key = key;
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package net.tnemc.config;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Visits the descendants of a {@link ConfigSection} depth-first, through {@link ConfigSection#walk(ConfigVisitor)}.
+ */
+@FunctionalInterface
+public interface ConfigVisitor {
+
+  /**
+   * Called for every descendant, in file order. The {@link ConfigCursor cursor} is only positioned on the
+   * descendant for the duration of this call, and {@link ConfigCursor#skipChildren()} may be used to skip its
+   * own descendants.
+   * @param cursor The {@link ConfigCursor cursor}, which must not be moved by the visitor.
+   * @return True to continue walking, or false to stop.
+   */
+  boolean visit(ConfigCursor cursor);
+}
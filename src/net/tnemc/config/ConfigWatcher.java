@@ -0,0 +1,102 @@
+package net.tnemc.config;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Watches the file of a {@link CommentedConfiguration} and reloads it on its own thread once the file has been
+ * quiet for the debounce period, so editors that write a file in several steps only cause a single reload.
+ * Reloads that fail, such as when the file can't be read or parsed, are logged and the current tree is kept.
+ */
+public class ConfigWatcher {
+
+  private static final Logger LOGGER = Logger.getLogger(ConfigWatcher.class.getName());
+
+  private final CommentedConfiguration config;
+  private final Path file;
+  private final WatchService service;
+  private final long debounce;
+  private final Thread thread;
+
+  private volatile boolean running = true;
+
+  /**
+   * Constructor for {@link ConfigWatcher}, which starts watching right away.
+   * @param config The {@link CommentedConfiguration configuration} to reload.
+   * @param debounce The time the file must go without changes before it's reloaded.
+   * @param unit The {@link TimeUnit unit} of the debounce period.
+   * @throws IOException If the directory of the file can't be watched.
+   */
+  public ConfigWatcher(CommentedConfiguration config, long debounce, TimeUnit unit) throws IOException {
+    this.config = config;
+    this.file = config.getRealFile().toPath().toAbsolutePath();
+    this.debounce = unit.toNanos(debounce);
+
+    final Path directory = file.getParent();
+    this.service = directory.getFileSystem().newWatchService();
+    directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+    this.thread = new Thread(this::watch, "TheNewConfigLibrary Watcher - " + file.getFileName());
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Stops watching the file.
+   */
+  public void close() {
+    running = false;
+    try {
+      service.close();
+    } catch(IOException ignore) { }
+  }
+
+  private void watch() {
+    try {
+      while(running) {
+        boolean changed = drain(service.take());
+
+        while(changed) {
+          final WatchKey next = service.poll(debounce, TimeUnit.NANOSECONDS);
+          if(next == null) break;
+          drain(next);
+        }
+
+        if(changed) {
+          try {
+            config.reloadIfChanged();
+          } catch(Exception e) {
+            LOGGER.log(Level.WARNING, "Unable to reload configuration file " + file, e);
+          }
+        }
+      }
+    } catch(InterruptedException | ClosedWatchServiceException ignore) { }
+  }
+
+  private boolean drain(WatchKey key) {
+    boolean changed = false;
+    for(WatchEvent<?> event : key.pollEvents()) {
+      if(event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context())) {
+        changed = true;
+      }
+    }
+    key.reset();
+    return changed;
+  }
+}
@@ -0,0 +1,193 @@
+package net.tnemc.config;
+
+import com.hellyard.cuttlefish.grammar.yaml.YamlNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Merges the {@link YamlNode nodes} of a defaults file into the nodes loaded from a configuration file. Every
+ * loaded node is kept in file order, and each default node whose path is missing from the loaded nodes, and
+ * isn't ignored, is appended after them so that it ends up as the last child of its parent.
+ *
+ * The loaded nodes are indexed by their full path, and the ignore list is compiled into a single matcher, so
+ * the merge is one linear pass over each list.
+ */
+public class DefaultsMerge {
+
+  private final LinkedList<YamlNode> merged;
+  private final List<String> added;
+
+  private DefaultsMerge(LinkedList<YamlNode> merged, List<String> added) {
+    this.merged = merged;
+    this.added = added;
+  }
+
+  /**
+   * Merges the specified default {@link YamlNode nodes} into the specified loaded nodes.
+   * @param loaded The {@link YamlNode nodes} loaded from the configuration file.
+   * @param defaults The {@link YamlNode nodes} loaded from the defaults file, with every parent node preceding
+   *                 its children.
+   * @param ignore The nodes that shouldn't be copied over. A default node is ignored if its path contains, or
+   *               equals ignoring case, any of these, or if its parent was ignored.
+   * @return The result of the merge.
+   */
+  public static DefaultsMerge merge(Collection<YamlNode> loaded, Collection<YamlNode> defaults, Collection<String> ignore) {
+    final long start = ConfigMetrics.start();
+    final Set<String> paths = new HashSet<>((int)(loaded.size() / 0.75f) + 1);
+    for(YamlNode node : loaded) {
+      paths.add(node.getNode());
+    }
+
+    final IgnoreMatcher matcher = new IgnoreMatcher(ignore);
+    final LinkedList<YamlNode> merged = new LinkedList<>(loaded);
+    final List<String> added = new ArrayList<>();
+    final Set<String> skipped = new HashSet<>();
+
+    for(YamlNode node : defaults) {
+      final String path = node.getNode();
+      if(paths.contains(path)) continue;
+
+      final int split = path.lastIndexOf('.');
+      if(matcher.matches(path) || (split > 0 && skipped.contains(path.substring(0, split)))) {
+        skipped.add(path);
+        continue;
+      }
+
+      merged.add(node);
+      added.add(path);
+    }
+    ConfigMetrics.finish(ConfigMetrics.Phase.MERGE, start);
+    return new DefaultsMerge(merged, Collections.unmodifiableList(added));
+  }
+
+  /**
+   * Returns the merged {@link YamlNode nodes}, with every parent node preceding its children.
+   * @return The merged {@link YamlNode nodes}.
+   */
+  public LinkedList<YamlNode> getMerged() {
+    return merged;
+  }
+
+  /**
+   * Returns the paths of the default nodes that were missing from the loaded nodes and have been added.
+   * @return An unmodifiable list of the added paths, in the order of the defaults file.
+   */
+  public List<String> getAdded() {
+    return added;
+  }
+
+  /**
+   * Matches paths against an ignore list in a single pass over each path, using a trie of the ignored
+   * strings with failure links between its states (Aho-Corasick).
+   */
+  private static final class IgnoreMatcher {
+
+    private final List<Map<Character, Integer>> edges = new ArrayList<>();
+    private final List<Boolean> terminal = new ArrayList<>();
+    private final Set<String> folded = new HashSet<>();
+    private final boolean[] foldedLengths;
+
+    private int[] fail = new int[0];
+    private boolean matchAll = false;
+
+    IgnoreMatcher(Collection<String> ignore) {
+      int longest = 0;
+      addState();
+
+      for(String str : ignore) {
+        if(str.isEmpty()) {
+          matchAll = true;
+          continue;
+        }
+
+        int state = 0;
+        for(int i = 0; i < str.length(); i++) {
+          final Integer next = edges.get(state).get(str.charAt(i));
+          if(next == null) {
+            final int created = addState();
+            edges.get(state).put(str.charAt(i), created);
+            state = created;
+          } else {
+            state = next;
+          }
+        }
+        terminal.set(state, true);
+        folded.add(str.toLowerCase(Locale.ROOT));
+        longest = Math.max(longest, str.length());
+      }
+
+      foldedLengths = new boolean[longest + 1];
+      for(String str : folded) {
+        foldedLengths[str.length()] = true;
+      }
+      link();
+    }
+
+    private int addState() {
+      edges.add(new HashMap<>());
+      terminal.add(false);
+      return edges.size() - 1;
+    }
+
+    private void link() {
+      fail = new int[edges.size()];
+      final ArrayDeque<Integer> queue = new ArrayDeque<>(edges.get(0).values());
+
+      while(!queue.isEmpty()) {
+        final int state = queue.poll();
+
+        for(Map.Entry<Character, Integer> edge : edges.get(state).entrySet()) {
+          final int child = edge.getValue();
+
+          int fallback = fail[state];
+          while(fallback != 0 && !edges.get(fallback).containsKey(edge.getKey())) {
+            fallback = fail[fallback];
+          }
+          final Integer target = edges.get(fallback).get(edge.getKey());
+          fail[child] = (target == null || target == child)? 0 : target;
+
+          if(terminal.get(fail[child])) terminal.set(child, true);
+          queue.add(child);
+        }
+      }
+    }
+
+    boolean matches(String path) {
+      if(matchAll) return true;
+      if(folded.isEmpty()) return false;
+
+      int state = 0;
+      for(int i = 0; i < path.length(); i++) {
+        final char c = path.charAt(i);
+        Integer next = edges.get(state).get(c);
+        while(next == null && state != 0) {
+          state = fail[state];
+          next = edges.get(state).get(c);
+        }
+        state = (next == null)? 0 : next;
+        if(terminal.get(state)) return true;
+      }
+
+      return path.length() < foldedLengths.length && foldedLengths[path.length()]
+          && folded.contains(path.toLowerCase(Locale.ROOT));
+    }
+  }
+}
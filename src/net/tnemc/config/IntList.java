@@ -0,0 +1,56 @@
+package net.tnemc.config;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * An unmodifiable, random-access list of the int values of a {@link ConfigSection section}, backed by the array
+ * they were parsed into. Use {@link #getInt(int)} to read a value without boxing it.
+ */
+public final class IntList extends AbstractList<Integer> implements RandomAccess {
+
+  static final IntList EMPTY = new IntList(new int[0]);
+
+  private final int[] values;
+
+  IntList(int[] values) {
+    this.values = values;
+  }
+
+  /**
+   * Returns the value at the specified index without boxing it.
+   * @param index The index of the value.
+   * @return The value.
+   * @throws IndexOutOfBoundsException If the index is out of range.
+   */
+  public int getInt(int index) {
+    return values[index];
+  }
+
+  @Override
+  public Integer get(int index) {
+    return values[index];
+  }
+
+  @Override
+  public int size() {
+    return values.length;
+  }
+
+  /**
+   * Returns a copy of the values.
+   * @return A new array of the values.
+   */
+  public int[] toIntArray() {
+    return (values.length == 0)? values : Arrays.copyOf(values, values.length);
+  }
+}
@@ -0,0 +1,683 @@
+package net.tnemc.config;
+
+import com.hellyard.cuttlefish.grammar.yaml.YamlNode;
+import com.hellyard.cuttlefish.grammar.yaml.YamlValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * A read view over a stack of {@link ConfigSection configuration trees}, i.e. bundled defaults, the file on disk
+ * and runtime overrides, where each path resolves to the top-most layer that contains it. The layers are never
+ * merged or copied. Instead the winning layer of every path is indexed once, so a lookup by full path is a single
+ * hash probe. The index is rebuilt after layers are added or removed, or the structure of a layer below the
+ * overrides changes, i.e. when the file is reloaded, which the layers signal as it happens, so lookups only read
+ * a flag. Sections added to or removed from the overrides only update the paths below them, and value changes
+ * within any layer are visible right away without touching the index.
+ *
+ * The top-most layer is the runtime {@link #getOverrides() overrides} layer, which receives every value set on
+ * this configuration, as do structural changes such as {@link #remove(String) remove} and
+ * {@link #batch(Consumer) batch}. Lookups should use full paths, since a section returned by
+ * {@link #getSection(String) getSection} only contains the children of its own layer. For the same reason the
+ * layers can't be walked as one tree by a {@link ConfigCursor cursor}, and {@link #stream()} returns the winning
+ * section of every path instead.
+ */
+public class LayeredConfiguration extends ConfigSection {
+
+  private final ConfigSection overrides = new ConfigSection(null);
+
+  /**
+   * The layers from the bottom layer to the overrides layer, which is replaced as a whole when layers are added
+   * or removed while holding the layer lock.
+   */
+  private volatile Layer[] layers;
+  private final Object layerLock = new Object();
+
+  private volatile CommentedConfiguration file = null;
+  private volatile Index index = null;
+  private final Object indexLock = new Object();
+
+  /**
+   * Whether the structure of a layer below the overrides changed since the index was built, which is always the
+   * case while one of the layers doesn't track its structure.
+   */
+  private volatile boolean stale = true;
+  private final Consumer<ConfigSection> layerChanged = section -> stale = true;
+
+  /**
+   * Constructor for {@link LayeredConfiguration}, which starts out with only the empty overrides layer.
+   */
+  public LayeredConfiguration() {
+    super(null);
+    overrides.trackModifications(null);
+    overrides.tree().listen(this::overridesChanged);
+    layers = new Layer[] { new Layer("overrides", overrides) };
+  }
+
+  /**
+   * Adds a layer above every layer added before it, but below the overrides layer.
+   * @param name The name of the layer.
+   * @param layer The root {@link ConfigSection section} of the layer.
+   * @return This configuration.
+   */
+  public LayeredConfiguration addLayer(String name, ConfigSection layer) {
+    synchronized(layerLock) {
+      if(getLayer(name) != null) {
+        throw new IllegalArgumentException("A layer named " + name + " already exists.");
+      }
+      //Track the structure of standalone trees, so the index isn't rebuilt on every lookup.
+      if(layer.tree() == null && !layer.isFrozen()) layer.trackModifications(null);
+      if(layer.tree() != null) layer.tree().listen(layerChanged);
+
+      final Layer[] current = layers;
+      final Layer[] updated = Arrays.copyOf(current, current.length + 1);
+      updated[current.length - 1] = new Layer(name, layer);
+      updated[current.length] = current[current.length - 1];
+      layers = updated;
+      stale = true;
+    }
+    return this;
+  }
+
+  /**
+   * Adds a layer backed by {@link SharedDefaults shared defaults}.
+   * @param name The name of the layer.
+   * @param defaults The {@link SharedDefaults defaults} of the layer.
+   * @return This configuration.
+   */
+  public LayeredConfiguration addLayer(String name, SharedDefaults defaults) {
+    return addLayer(name, defaults.getRoot());
+  }
+
+  /**
+   * Adds the layer of the configuration file, which is the layer written by {@link #save()}.
+   * @param name The name of the layer.
+   * @param file The loaded {@link CommentedConfiguration configuration} of the file.
+   * @return This configuration.
+   */
+  public LayeredConfiguration addFileLayer(String name, CommentedConfiguration file) {
+    addLayer(name, file);
+    this.file = file;
+    return this;
+  }
+
+  /**
+   * Adds a layer of the specified properties whose keys start with the specified prefix, i.e.
+   * {@link System#getProperties() system properties}, with the remainder of each key as its path.
+   * @param name The name of the layer.
+   * @param properties The properties to add.
+   * @param prefix The prefix of the keys to include, i.e. "tne.".
+   * @return This configuration.
+   */
+  public LayeredConfiguration addLayer(String name, Properties properties, String prefix) {
+    final ConfigSection layer = new ConfigSection(null);
+    for(String key : properties.stringPropertyNames()) {
+      if(key.startsWith(prefix) && key.length() > prefix.length()) {
+        layer.setOrCreate(key.substring(prefix.length()), properties.getProperty(key));
+      }
+    }
+    return addLayer(name, layer);
+  }
+
+  /**
+   * Removes the specified layer. The overrides layer can't be removed.
+   * @param name The name of the layer.
+   * @return True if the layer was removed, otherwise false.
+   */
+  public boolean removeLayer(String name) {
+    synchronized(layerLock) {
+      final Layer layer = getLayer(name);
+      if(layer == null || layer.section == overrides) return false;
+
+      final Layer[] current = layers;
+      final Layer[] updated = new Layer[current.length - 1];
+      int i = 0;
+      for(Layer other : current) {
+        if(other != layer) updated[i++] = other;
+      }
+      layers = updated;
+      stale = true;
+
+      if(layer.section.tree() != null) layer.section.tree().unlisten(layerChanged);
+      if(layer.section == file) file = null;
+      return true;
+    }
+  }
+
+  /**
+   * Returns the root {@link ConfigSection section} of the specified layer.
+   * @param name The name of the layer.
+   * @return The root section of the layer, or null if there's no such layer.
+   */
+  public ConfigSection getLayerSection(String name) {
+    final Layer layer = getLayer(name);
+    return (layer == null)? null : layer.section;
+  }
+
+  /**
+   * Returns the names of the layers, from the bottom layer to the overrides layer.
+   * @return The names of the layers.
+   */
+  public List<String> getLayerNames() {
+    final List<String> names = new LinkedList<>();
+    for(Layer layer : layers) {
+      names.add(layer.name);
+    }
+    return names;
+  }
+
+  /**
+   * Returns the runtime overrides layer, which is above every other layer.
+   * @return The root {@link ConfigSection section} of the overrides layer.
+   */
+  public ConfigSection getOverrides() {
+    return overrides;
+  }
+
+  /**
+   * Returns the name of the layer the specified path resolves to.
+   * @param node The full path to resolve.
+   * @return The name of the winning layer, or null if no layer contains the path.
+   */
+  public String getWinningLayer(String node) {
+    final Entry entry = index().entries.get(node);
+    return (entry == null)? null : entry.layer.name;
+  }
+
+  /**
+   * Saves the file layer.
+   * @return True if the file layer was saved, otherwise false.
+   */
+  public boolean save() {
+    final CommentedConfiguration current = file;
+    return current != null && current.save();
+  }
+
+  @Override
+  public Set<String> getKeys(boolean deep) {
+    return index().keys(deep);
+  }
+
+  @Override
+  public ConfigSection getSection(String node) {
+    final Entry entry = index().entries.get(node);
+    if(ConfigMetrics.enabled) ConfigMetrics.lookup(node, entry != null);
+    return (entry == null)? null : entry.section;
+  }
+
+  @Override
+  public ConfigSection getSection(ConfigPath path) {
+    return getSection(path.getPath());
+  }
+
+  @Override
+  public YamlNode getNode(String node) {
+    final ConfigSection section = getSection(node);
+    return (section == null)? null : section.getBaseNode();
+  }
+
+  @Override
+  public YamlNode getNode(ConfigPath path) {
+    return getNode(path.getPath());
+  }
+
+  @Override
+  public LinkedList<YamlNode> getNodeValues() {
+    final Index current = index();
+    final LinkedList<YamlNode> nodes = new LinkedList<>();
+    for(String key : current.keys(true)) {
+      final Entry entry = current.entries.get(key);
+      if(entry != null) nodes.add(entry.section.getBaseNode());
+    }
+    return nodes;
+  }
+
+  /**
+   * Not supported, since the layers can't be walked as one tree. Use {@link #stream()} instead.
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public ConfigCursor cursor() {
+    throw new UnsupportedOperationException("The layers of a LayeredConfiguration can't be walked by a cursor.");
+  }
+
+  /**
+   * Not supported, since the layers can't be walked as one tree. Use {@link #stream()} instead.
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public boolean walk(ConfigVisitor visitor) {
+    throw new UnsupportedOperationException("The layers of a LayeredConfiguration can't be walked by a cursor.");
+  }
+
+  /**
+   * Returns a sequential stream of the winning {@link ConfigSection section} of every path, in the order of
+   * {@link #getKeys(boolean) getKeys(true)}.
+   * @return The stream.
+   */
+  @Override
+  public Stream<ConfigSection> stream() {
+    return winners(false);
+  }
+
+  /**
+   * Returns a parallel stream of the winning {@link ConfigSection section} of every path.
+   * @return The stream.
+   */
+  @Override
+  public Stream<ConfigSection> parallelStream() {
+    return winners(true);
+  }
+
+  private Stream<ConfigSection> winners(boolean parallel) {
+    final Index current = index();
+    final Stream<String> keys = (parallel)? current.keys(true).parallelStream() : current.keys(true).stream();
+    return keys.map(key -> {
+      final Entry entry = current.entries.get(key);
+      return (entry == null)? null : entry.section;
+    }).filter(Objects::nonNull);
+  }
+
+  @Override
+  public ConfigSection getSectionOrCreate(ConfigPath path) {
+    return overrides.getSectionOrCreate(path);
+  }
+
+  @Override
+  public ConfigSection getSectionOrCreate(String node) {
+    return overrides.getSectionOrCreate(node);
+  }
+
+  @Override
+  public ConfigSection getSectionOrCreate(String node, int index) {
+    return overrides.getSectionOrCreate(node, index);
+  }
+
+  @Override
+  public void setOrCreate(String node, String... values) {
+    overrides.setOrCreate(node, values);
+  }
+
+  @Override
+  public void setOrCreate(String node, YamlValue... values) {
+    overrides.setOrCreate(node, values);
+  }
+
+  @Override
+  public void setOrCreate(ConfigPath path, String... values) {
+    overrides.setOrCreate(path, values);
+  }
+
+  @Override
+  public void setOrCreate(ConfigPath path, YamlValue... values) {
+    overrides.setOrCreate(path, values);
+  }
+
+  @Override
+  public void setOrCreate(String node, int index, String... values) {
+    overrides.setOrCreate(node, index, values);
+  }
+
+  @Override
+  public void setOrCreate(String node, int index, YamlValue... values) {
+    overrides.setOrCreate(node, index, values);
+  }
+
+  @Override
+  public void set(String node, String... values) {
+    overrides.setOrCreate(node, values);
+  }
+
+  @Override
+  public void set(String node, YamlValue... values) {
+    overrides.setOrCreate(node, values);
+  }
+
+  @Override
+  public void set(ConfigPath path, String... values) {
+    overrides.setOrCreate(path, values);
+  }
+
+  @Override
+  public void set(ConfigPath path, YamlValue... values) {
+    overrides.setOrCreate(path, values);
+  }
+
+  @Override
+  public void setValue(String node, YamlValue value, int number) {
+    prepareOverride(node);
+    overrides.setValue(node, value, number);
+  }
+
+  @Override
+  public void setValue(ConfigPath path, YamlValue value, int number) {
+    prepareOverride(path.getPath());
+    overrides.setValue(path, value, number);
+  }
+
+  /**
+   * Copies the values of the specified path into the overrides layer, if that layer doesn't contain it yet.
+   * @param node The full path.
+   */
+  private void prepareOverride(String node) {
+    if(overrides.contains(node)) return;
+
+    final ConfigSection winner = getSection(node);
+    final List<YamlValue> values = new LinkedList<>();
+    if(winner != null) {
+      for(YamlValue value : winner.getBaseNode().getValues()) {
+        values.add(new YamlValue(new ArrayList<>(value.getComments()), value.getValue(), value.getType()));
+      }
+    }
+    overrides.setOrCreate(node, values.toArray(new YamlValue[0]));
+  }
+
+  @Override
+  public void createSection(ConfigSection section) {
+    overrides.createSection(section);
+  }
+
+  @Override
+  public void createSection(ConfigSection section, int index) {
+    overrides.createSection(section, index);
+  }
+
+  @Override
+  public void addChildIndex(int index, String node, ConfigSection section) {
+    overrides.addChildIndex(index, node, section);
+  }
+
+  /**
+   * Removes the specified path from the overrides layer, after which it resolves to the top-most layer below
+   * that contains it, if any. The other layers are never modified.
+   * @param node The path of the section to remove.
+   * @return True if the overrides layer contained the section, otherwise false.
+   */
+  @Override
+  public boolean remove(String node) {
+    return overrides.remove(node);
+  }
+
+  /**
+   * Moves the specified path within the overrides layer.
+   * @param node The path of the section to move.
+   * @param index The new index of the section, which is clamped to its siblings.
+   * @return True if the overrides layer contained the section, otherwise false.
+   */
+  @Override
+  public boolean move(String node, int index) {
+    return overrides.move(node, index);
+  }
+
+  /**
+   * Applies many changes to the overrides layer at once.
+   * @param changes The consumer that applies the changes to the {@link ConfigBatch batch}.
+   */
+  @Override
+  public void batch(Consumer<ConfigBatch> changes) {
+    overrides.batch(changes);
+  }
+
+  private Layer getLayer(String name) {
+    for(Layer layer : layers) {
+      if(layer.name.equals(name)) return layer;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the index of winning layers, rebuilding it if layers were added or removed, or the structure of
+   * a layer below the overrides changed since it was built.
+   * @return The current index.
+   */
+  private Index index() {
+    final Index cached = index;
+    if(cached != null && !stale && cached.layers == layers) {
+      return cached;
+    }
+
+    synchronized(indexLock) {
+      final Layer[] current = layers;
+      final Index again = index;
+      if(again != null && !stale && again.layers == current) {
+        return again;
+      }
+
+      //Cleared before the layers are read, so changes made while indexing them cause another rebuild.
+      stale = !tracked(current);
+
+      final Map<String, Entry> entries = new ConcurrentHashMap<>();
+      final Map<String, ChildMap> overridden = new HashMap<>();
+      for(Layer layer : current) {
+        if(layer.section == overrides) {
+          collectOverrides(layer, overrides, "", entries, overridden);
+        } else {
+          collect(layer, layer.section, "", entries);
+        }
+      }
+
+      final Index built = new Index(current, entries, overridden);
+      index = built;
+      return built;
+    }
+  }
+
+  /**
+   * Returns whether every one of the specified layers signals changes to its structure, which is the case
+   * unless one of them was detached from its tree after being added.
+   */
+  private boolean tracked(Layer[] layers) {
+    for(Layer layer : layers) {
+      if(layer.section.structureGeneration() < 0) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Updates the paths of the index below the specified section of the overrides layer, whose children changed.
+   * Only the children that were added, removed or replaced since the section was indexed are visited, and
+   * paths the overrides no longer contain fall back to the top-most layer below that still does.
+   * @param section The changed section of the overrides layer.
+   */
+  private void overridesChanged(ConfigSection section) {
+    synchronized(indexLock) {
+      final Index current = index;
+      if(current == null) return;
+
+      final String path = (section.getBaseNode() == null)? "" : section.getBaseNode().getNode();
+      final ChildMap indexed = current.overridden.get(path);
+      if(indexed == null) return;
+
+      final String prefix = (path.isEmpty())? "" : path + ".";
+      final ChildMap children = section.children();
+      for(Map.Entry<String, ConfigSection> child : indexed.entrySet()) {
+        if(children.get(child.getKey()) != child.getValue()) {
+          dropOverrides(current, prefix + child.getKey());
+        }
+      }
+
+      final Layer top = current.layers[current.layers.length - 1];
+      for(Map.Entry<String, ConfigSection> child : children.entrySet()) {
+        if(indexed.get(child.getKey()) != child.getValue()) {
+          final String key = prefix + child.getKey();
+          current.entries.put(key, new Entry(top, child.getValue()));
+          collectOverrides(top, child.getValue(), key, current.entries, current.overridden);
+        }
+      }
+      current.overridden.put(path, children);
+      current.changed();
+    }
+  }
+
+  /**
+   * Removes an indexed path of the overrides layer and the paths below it, which then fall back to the
+   * top-most layer below the overrides that contains them.
+   */
+  private static void dropOverrides(Index index, String path) {
+    final ChildMap indexed = index.overridden.remove(path);
+    if(indexed != null) {
+      for(String key : indexed.keySet()) {
+        dropOverrides(index, path + "." + key);
+      }
+    }
+
+    final Entry winner = winner(index.layers, path);
+    if(winner == null) index.entries.remove(path); else index.entries.put(path, winner);
+  }
+
+  /**
+   * Returns the winning entry of the specified path among the layers below the overrides.
+   */
+  private static Entry winner(Layer[] layers, String path) {
+    for(int i = layers.length - 2; i >= 0; i--) {
+      final ConfigSection section = layers[i].section.getSection(path);
+      if(section != null) return new Entry(layers[i], section);
+    }
+    return null;
+  }
+
+  private static void collect(Layer layer, ConfigSection section, String prefix, Map<String, Entry> entries) {
+    for(Map.Entry<String, ConfigSection> child : section.allChildren().entrySet()) {
+      final String path = prefix + child.getKey();
+      entries.put(path, new Entry(layer, child.getValue()));
+      collect(layer, child.getValue(), path + ".", entries);
+    }
+  }
+
+  /**
+   * Indexes the descendants of a section of the overrides layer, and records the children each section was
+   * indexed with, so later changes only need to visit the children that differ.
+   */
+  private static void collectOverrides(Layer layer, ConfigSection section, String path, Map<String, Entry> entries,
+                                       Map<String, ChildMap> overridden) {
+    final ChildMap children = section.children();
+    overridden.put(path, children);
+
+    final String prefix = (path.isEmpty())? "" : path + ".";
+    for(Map.Entry<String, ConfigSection> child : children.entrySet()) {
+      final String key = prefix + child.getKey();
+      entries.put(key, new Entry(layer, child.getValue()));
+      collectOverrides(layer, child.getValue(), key, entries, overridden);
+    }
+  }
+
+  /**
+   * Collects the paths of every layer in the order they were indexed in: the paths of each layer in file order,
+   * after those of the layers below it.
+   */
+  private static void collectKeys(ConfigSection section, String prefix, Set<String> keys) {
+    for(Map.Entry<String, ConfigSection> child : section.allChildren().entrySet()) {
+      final String path = prefix + child.getKey();
+      keys.add(path);
+      collectKeys(child.getValue(), path + ".", keys);
+    }
+  }
+
+  private static final class Layer {
+    private final String name;
+    private final ConfigSection section;
+
+    Layer(String name, ConfigSection section) {
+      this.name = name;
+      this.section = section;
+    }
+  }
+
+  private static final class Entry {
+    private final Layer layer;
+    private final ConfigSection section;
+
+    Entry(Layer layer, ConfigSection section) {
+      this.layer = layer;
+      this.section = section;
+    }
+  }
+
+  /**
+   * The winning layer of every path, along with the layers it was built for. The entries may be updated in place
+   * for changes to the overrides layer, so readers never lock.
+   */
+  private static final class Index {
+    private final Layer[] layers;
+    private final Map<String, Entry> entries;
+
+    /**
+     * The children every section of the overrides layer was indexed with, by path. Only accessed while holding
+     * the index lock.
+     */
+    private final Map<String, ChildMap> overridden;
+
+    private volatile int version = 0;
+    private volatile Keys keys = null;
+
+    Index(Layer[] layers, Map<String, Entry> entries, Map<String, ChildMap> overridden) {
+      this.layers = layers;
+      this.entries = entries;
+      this.overridden = overridden;
+    }
+
+    /**
+     * Returns the paths of every layer, which are collected the first time they're needed after a change.
+     */
+    Set<String> keys(boolean deep) {
+      Keys current = keys;
+      if(current == null || current.version != version) {
+        final int seen = version;
+        final LinkedHashSet<String> collected = new LinkedHashSet<>();
+        for(Layer layer : layers) {
+          collectKeys(layer.section, "", collected);
+        }
+
+        final LinkedHashSet<String> top = new LinkedHashSet<>();
+        for(String key : collected) {
+          if(key.indexOf('.') < 0) top.add(key);
+        }
+        current = new Keys(seen, Collections.unmodifiableSet(collected), Collections.unmodifiableSet(top));
+        keys = current;
+      }
+      return (deep)? current.deep : current.top;
+    }
+
+    /**
+     * Drops the collected paths. Only called while holding the index lock.
+     */
+    void changed() {
+      version++;
+    }
+  }
+
+  /**
+   * The paths of every layer, along with the version of the index they were collected at.
+   */
+  private static final class Keys {
+    private final int version;
+    private final Set<String> deep;
+    private final Set<String> top;
+
+    Keys(int version, Set<String> deep, Set<String> top) {
+      this.version = version;
+      this.deep = deep;
+      this.top = top;
+    }
+  }
+}
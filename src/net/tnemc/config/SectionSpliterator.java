@@ -0,0 +1,95 @@
+package net.tnemc.config;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * A {@link Spliterator} over the descendants of a {@link ConfigSection}, backed by a {@link ConfigCursor}. It's
+ * split by handing off the first half of the sections left on the level it started on, along with their
+ * subtrees. Once a single section is left on that level, the spliterator moves down into it, so a tree with one
+ * large top-level section still splits across its children.
+ */
+final class SectionSpliterator implements Spliterator<ConfigSection> {
+
+  /**
+   * A section to return before those of the cursor, which is the parent the spliterator moved down from.
+   */
+  private ConfigSection head;
+  private ConfigCursor cursor;
+  private long estimate;
+
+  SectionSpliterator(ConfigSection root) {
+    this(null, new ConfigCursor(root), Long.MAX_VALUE);
+  }
+
+  private SectionSpliterator(ConfigSection head, ConfigCursor cursor, long estimate) {
+    this.head = head;
+    this.cursor = cursor;
+    this.estimate = estimate;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super ConfigSection> action) {
+    if(head != null) {
+      final ConfigSection section = head;
+      head = null;
+      action.accept(section);
+      return true;
+    }
+
+    if(!cursor.next()) return false;
+    action.accept(cursor.getSection());
+    return true;
+  }
+
+  @Override
+  public void forEachRemaining(Consumer<? super ConfigSection> action) {
+    if(head != null) {
+      action.accept(head);
+      head = null;
+    }
+
+    while(cursor.next()) {
+      action.accept(cursor.getSection());
+    }
+  }
+
+  @Override
+  public Spliterator<ConfigSection> trySplit() {
+    if(!cursor.atStart()) return null;
+
+    if(head == null && cursor.remaining() == 1) {
+      final ConfigSection only = cursor.peek();
+      if(only == null) return null;
+
+      head = only;
+      cursor = new ConfigCursor(only);
+    }
+
+    final int remaining = cursor.remaining();
+    if(remaining < 2) return null;
+
+    estimate >>>= 1;
+    final SectionSpliterator prefix = new SectionSpliterator(head, cursor.split(remaining / 2), estimate);
+    head = null;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize() {
+    return estimate;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | NONNULL;
+  }
+}
@@ -0,0 +1,91 @@
+package net.tnemc.config;
+
+import com.hellyard.cuttlefish.grammar.yaml.YamlNode;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * A defaults file parsed once into a frozen tree of {@link ConfigSection sections}, which can be shared by any
+ * number of {@link CommentedConfiguration configurations}. A configuration loaded with shared defaults only holds
+ * the nodes of its own file, and falls back to the shared tree for anything its file doesn't contain. Setting a
+ * value that only exists in the defaults copies that node into the configuration first, so the shared tree is
+ * never modified.
+ */
+public final class SharedDefaults {
+
+  private final ConfigSection root;
+
+  private SharedDefaults(ConfigSection root) {
+    this.root = root;
+  }
+
+  /**
+   * Parses the specified defaults file.
+   * @param file The file that contains our default configurations.
+   * @return The shared defaults.
+   * @throws IOException If the file couldn't be read.
+   */
+  public static SharedDefaults parse(Path file) throws IOException {
+    return parse(file, Collections.emptyList());
+  }
+
+  /**
+   * Parses the specified defaults file.
+   * @param file The file that contains our default configurations.
+   * @param ignore The nodes that shouldn't be shared. A node is left out if its path contains, or equals
+   *               ignoring case, any of these, or if its parent was left out.
+   * @return The shared defaults.
+   * @throws IOException If the file couldn't be read.
+   */
+  public static SharedDefaults parse(Path file, Collection<String> ignore) throws IOException {
+    return of(CommentedConfiguration.parse(ConfigInput.open(file)), ignore);
+  }
+
+  /**
+   * Parses the defaults from the specified {@link Reader}, closing it afterwards.
+   * @param reader The {@link Reader} that contains our default configurations.
+   * @param ignore The nodes that shouldn't be shared.
+   * @return The shared defaults.
+   */
+  public static SharedDefaults parse(Reader reader, Collection<String> ignore) {
+    return of(CommentedConfiguration.parse(reader), ignore);
+  }
+
+  /**
+   * Builds shared defaults from the specified {@link YamlNode nodes}, which must not be used elsewhere
+   * afterwards.
+   * @param nodes The default {@link YamlNode nodes}, with every parent node preceding its children.
+   * @param ignore The nodes that shouldn't be shared.
+   * @return The shared defaults.
+   */
+  public static SharedDefaults of(LinkedList<YamlNode> nodes, Collection<String> ignore) {
+    final LinkedList<YamlNode> shared = (ignore.isEmpty())? nodes :
+        DefaultsMerge.merge(Collections.emptyList(), nodes, ignore).getMerged();
+
+    final ConfigSection root = new ConfigSection(null);
+    root.children = CommentedConfiguration.decode(new ChildMap(), shared);
+    root.freeze();
+    return new SharedDefaults(root);
+  }
+
+  /**
+   * Returns the root of the frozen tree, whose sections can be read but not modified.
+   * @return The root {@link ConfigSection section}.
+   */
+  public ConfigSection getRoot() {
+    return root;
+  }
+}
@@ -0,0 +1,286 @@
+package net.tnemc.config;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Parses numbers and booleans directly from the characters of a value. Each parse method returns whether the
+ * value was valid instead of throwing, and leaves the parsed primitive in this parser, so bad or missing values
+ * cost no more than good ones. A parser holds the result of its last parse, and isn't safe to share between
+ * threads.
+ */
+public final class ValueParser {
+
+  /**
+   * The largest mantissa, and powers of ten, that convert to a double exactly.
+   */
+  private static final long EXACT_DOUBLE_MANTISSA = 1L << 53;
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private long longValue;
+  private double doubleValue;
+  private float floatValue;
+  private boolean boolValue;
+
+  //The state of the last decimal scan, i.e. "-12.5e3" is a mantissa of 125 and an exponent of 2.
+  private long mantissa;
+  private int exponent;
+  private boolean negativeMantissa;
+  private boolean truncated;
+
+  /**
+   * Parses a decimal integer with an optional sign.
+   * @param value The value to parse, which may be null.
+   * @param min The smallest allowed value.
+   * @param max The largest allowed value.
+   * @return True if the value is an integer between min and max, in which case it's available from
+   * {@link #getLong()}, otherwise false.
+   */
+  public boolean parseLong(CharSequence value, long min, long max) {
+    if(value == null) return false;
+
+    final int length = value.length();
+    int i = 0;
+    boolean negative = false;
+    if(length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+      negative = value.charAt(0) == '-';
+      i++;
+    }
+    if(i == length) return false;
+
+    //Accumulate negatively, so Long.MIN_VALUE can be parsed without overflowing.
+    final long limit = (negative)? Long.MIN_VALUE : -Long.MAX_VALUE;
+    final long multiplyLimit = limit / 10;
+    long result = 0;
+    for(; i < length; i++) {
+      final int digit = value.charAt(i) - '0';
+      if(digit < 0 || digit > 9) return false;
+      if(result < multiplyLimit) return false;
+      result *= 10;
+      if(result < limit + digit) return false;
+      result -= digit;
+    }
+
+    result = (negative)? result : -result;
+    if(result < min || result > max) return false;
+    longValue = result;
+    return true;
+  }
+
+  /**
+   * Parses a decimal number, with an optional sign, fraction and exponent. "Infinity", "NaN" and the YAML
+   * forms ".inf" and ".nan" are accepted as well.
+   * @param value The value to parse, which may be null.
+   * @return True if the value is a number, in which case it's available from {@link #getDouble()}, otherwise
+   * false.
+   */
+  public boolean parseDouble(CharSequence value) {
+    final int special = special(value);
+    if(special != 0) {
+      doubleValue = (special == 2)? Double.NaN : (special > 0)? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+      return true;
+    }
+    if(!scanDecimal(value)) return false;
+
+    if(mantissa < EXACT_DOUBLE_MANTISSA && !truncated && exponent >= -22 && exponent <= 22) {
+      double result = (double)mantissa;
+      result = (exponent < 0)? result / POWERS_OF_TEN[-exponent] : result * POWERS_OF_TEN[exponent];
+      doubleValue = (negativeMantissa)? -result : result;
+      return true;
+    }
+    doubleValue = Double.parseDouble(value.toString());
+    return true;
+  }
+
+  /**
+   * Parses a decimal number in the same forms as {@link #parseDouble(CharSequence)}.
+   * @param value The value to parse, which may be null.
+   * @return True if the value is a number, in which case it's available from {@link #getFloat()}, otherwise
+   * false.
+   */
+  public boolean parseFloat(CharSequence value) {
+    final int special = special(value);
+    if(special != 0) {
+      floatValue = (special == 2)? Float.NaN : (special > 0)? Float.POSITIVE_INFINITY : Float.NEGATIVE_INFINITY;
+      return true;
+    }
+    if(!scanDecimal(value)) return false;
+
+    if(mantissa < (1L << 24) && !truncated && exponent >= -10 && exponent <= 10) {
+      float result = (float)mantissa;
+      result = (exponent < 0)? result / (float)POWERS_OF_TEN[-exponent] : result * (float)POWERS_OF_TEN[exponent];
+      floatValue = (negativeMantissa)? -result : result;
+      return true;
+    }
+    floatValue = Float.parseFloat(value.toString());
+    return true;
+  }
+
+  /**
+   * Checks whether a value is a plain decimal number, with an optional sign, fraction and exponent, which
+   * can be passed to {@link java.math.BigDecimal#BigDecimal(String)} without it throwing.
+   * @param value The value to check, which may be null.
+   * @return True if the value is a plain decimal number, otherwise false.
+   */
+  public boolean isDecimal(CharSequence value) {
+    return scanDecimal(value);
+  }
+
+  /**
+   * Parses a YAML 1.1 boolean, ignoring case: true/false, yes/no, on/off and y/n.
+   * @param value The value to parse, which may be null.
+   * @return True if the value is a boolean, in which case it's available from {@link #getBoolean()},
+   * otherwise false.
+   */
+  public boolean parseBoolean(CharSequence value) {
+    if(value == null) return false;
+
+    switch(value.length()) {
+      case 1:
+        return bool(matches(value, 0, "y"), matches(value, 0, "n"));
+      case 2:
+        return bool(matches(value, 0, "on"), matches(value, 0, "no"));
+      case 3:
+        return bool(matches(value, 0, "yes"), matches(value, 0, "off"));
+      case 4:
+        return bool(matches(value, 0, "true"), false);
+      case 5:
+        return bool(false, matches(value, 0, "false"));
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns the integer parsed by the last successful {@link #parseLong(CharSequence, long, long) parseLong}.
+   * @return The parsed integer.
+   */
+  public long getLong() {
+    return longValue;
+  }
+
+  /**
+   * Returns the number parsed by the last successful {@link #parseDouble(CharSequence) parseDouble}.
+   * @return The parsed number.
+   */
+  public double getDouble() {
+    return doubleValue;
+  }
+
+  /**
+   * Returns the number parsed by the last successful {@link #parseFloat(CharSequence) parseFloat}.
+   * @return The parsed number.
+   */
+  public float getFloat() {
+    return floatValue;
+  }
+
+  /**
+   * Returns the boolean parsed by the last successful {@link #parseBoolean(CharSequence) parseBoolean}.
+   * @return The parsed boolean.
+   */
+  public boolean getBoolean() {
+    return boolValue;
+  }
+
+  private boolean bool(boolean isTrue, boolean isFalse) {
+    if(!isTrue && !isFalse) return false;
+    boolValue = isTrue;
+    return true;
+  }
+
+  private static boolean matches(CharSequence value, int offset, String lower) {
+    for(int i = 0; i < lower.length(); i++) {
+      if(Character.toLowerCase(value.charAt(offset + i)) != lower.charAt(i)) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Checks for the special floating point forms.
+   * @return 1 for positive infinity, -1 for negative infinity, 2 for NaN, otherwise 0.
+   */
+  private static int special(CharSequence value) {
+    if(value == null || value.length() < 3) return 0;
+
+    int i = 0;
+    int sign = 1;
+    if(value.charAt(0) == '-' || value.charAt(0) == '+') {
+      sign = (value.charAt(0) == '-')? -1 : 1;
+      i++;
+    }
+    final int length = value.length() - i;
+    if(length == 4 && value.charAt(i) == '.' && matches(value, i + 1, "inf")) return sign;
+    if(length == 8 && matches(value, i, "infinity")) return sign;
+    if(i == 0 && length == 4 && value.charAt(0) == '.' && matches(value, 1, "nan")) return 2;
+    if(i == 0 && length == 3 && matches(value, 0, "nan")) return 2;
+    return 0;
+  }
+
+  private boolean scanDecimal(CharSequence value) {
+    if(value == null) return false;
+
+    final int length = value.length();
+    int i = 0;
+    negativeMantissa = false;
+    if(length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+      negativeMantissa = value.charAt(0) == '-';
+      i++;
+    }
+
+    mantissa = 0;
+    truncated = false;
+    int scale = 0;
+    int digits = 0;
+    boolean fraction = false;
+    for(; i < length; i++) {
+      final char c = value.charAt(i);
+      if(c == '.') {
+        if(fraction) return false;
+        fraction = true;
+        continue;
+      }
+      if(c < '0' || c > '9') break;
+
+      digits++;
+      if(mantissa < Long.MAX_VALUE / 10 - 9) {
+        mantissa = mantissa * 10 + (c - '0');
+        if(fraction) scale--;
+      } else {
+        truncated = true;
+        if(!fraction) scale++;
+      }
+    }
+    if(digits == 0) return false;
+
+    int exp = 0;
+    if(i < length) {
+      final char e = value.charAt(i++);
+      if(e != 'e' && e != 'E') return false;
+
+      boolean negativeExp = false;
+      if(i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+        negativeExp = value.charAt(i) == '-';
+        i++;
+      }
+      if(i == length) return false;
+
+      for(; i < length; i++) {
+        final int digit = value.charAt(i) - '0';
+        if(digit < 0 || digit > 9) return false;
+        if(exp < 100000) exp = exp * 10 + digit;
+      }
+      if(negativeExp) exp = -exp;
+    }
+    exponent = scale + exp;
+    return true;
+  }
+}
@@ -0,0 +1,117 @@
+package net.tnemc.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Saves a {@link CommentedConfiguration} in the background. Save requests are coalesced so that the file is
+ * written at most once per interval, no matter how many requests are made in between, and the requesting
+ * thread never waits on the disk.
+ */
+public class WriteBehindSaver {
+
+  private final CommentedConfiguration config;
+  private final ScheduledExecutorService executor;
+  private final long interval;
+
+  private final Object lock = new Object();
+  private final List<CompletableFuture<Boolean>> waiting = new ArrayList<>();
+  private ScheduledFuture<?> pending = null;
+  private long lastWrite;
+
+  /**
+   * Constructor for {@link WriteBehindSaver}.
+   * @param config The {@link CommentedConfiguration configuration} to save.
+   * @param executor The executor to perform the writes on.
+   * @param interval The minimum time between two writes.
+   * @param unit The {@link TimeUnit unit} of the interval.
+   */
+  public WriteBehindSaver(CommentedConfiguration config, ScheduledExecutorService executor, long interval, TimeUnit unit) {
+    this.config = config;
+    this.executor = executor;
+    this.interval = unit.toNanos(interval);
+    this.lastWrite = System.nanoTime() - this.interval;
+  }
+
+  /**
+   * Requests that the configuration is saved. The write happens once the interval since the previous write
+   * has passed, and includes every modification made before it starts.
+   * @return A future that completes with the result of the write once it's on disk.
+   */
+  public CompletableFuture<Boolean> request() {
+    final CompletableFuture<Boolean> future = new CompletableFuture<>();
+    synchronized(lock) {
+      waiting.add(future);
+      if(pending == null) {
+        final long delay = Math.max(0, lastWrite + interval - System.nanoTime());
+        pending = executor.schedule(this::write, delay, TimeUnit.NANOSECONDS);
+      }
+    }
+    return future;
+  }
+
+  /**
+   * Writes any pending or unsaved modifications on the calling thread, i.e. during shutdown.
+   * @return True if the configuration is on disk and up to date, otherwise false.
+   */
+  public boolean flush() {
+    synchronized(lock) {
+      if(pending != null) {
+        pending.cancel(false);
+      }
+    }
+    return write();
+  }
+
+  private boolean write() {
+    final List<CompletableFuture<Boolean>> completing;
+    synchronized(lock) {
+      pending = null;
+      lastWrite = System.nanoTime();
+      completing = new ArrayList<>(waiting);
+      waiting.clear();
+    }
+
+    boolean saved;
+    try {
+      saved = config.saveNow();
+    } catch(Exception ignore) {
+      saved = false;
+    }
+
+    for(CompletableFuture<Boolean> future : completing) {
+      future.complete(saved);
+    }
+    return saved;
+  }
+
+  /**
+   * Returns the executor shared by {@link WriteBehindSaver savers} that weren't given one, which runs on a
+   * single daemon thread.
+   * @return The shared executor.
+   */
+  static ScheduledExecutorService sharedExecutor() {
+    return SharedExecutor.EXECUTOR;
+  }
+
+  private static final class SharedExecutor {
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "TheNewConfigLibrary Write-Behind");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+}
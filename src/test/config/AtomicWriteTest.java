@@ -0,0 +1,70 @@
+package test.config;
+
+import com.hellyard.cuttlefish.grammar.yaml.YamlNode;
+import com.hellyard.cuttlefish.grammar.yaml.YamlValue;
+import net.tnemc.config.CommentedConfiguration;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Checks that saves replace the file through a temporary file, leave nothing behind, write nodes that were
+ * modified directly, and report failures.
+ */
+public class AtomicWriteTest {
+
+  public static void main(String[] args) throws Exception {
+    final Path directory = Files.createTempDirectory("tnc-atomic-write");
+
+    //Names shorter than three characters used to be rejected as temporary file prefixes.
+    final Path file = directory.resolve("a");
+    final CommentedConfiguration config = new CommentedConfiguration(file, null);
+    config.setSnapshots(true);
+    config.load(false);
+    config.setOrCreate("Key", "value");
+    check(config.save(), "Saving a file with a short name failed: " + config.getSaveFailure());
+    check(config.getSaveFailure() == null, "A successful save reported a failure.");
+    check(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).contains("Key: value"), "The save wasn't written.");
+
+    final CommentedConfiguration reloaded = new CommentedConfiguration(file, null);
+    reloaded.setSnapshots(true);
+    reloaded.load(false);
+    check("value".equals(reloaded.getString("Key")), "The saved file didn't load back.");
+
+    try(Stream<Path> files = Files.list(directory)) {
+      check(files.noneMatch(path->path.getFileName().toString().endsWith(".tmp")), "A temporary file was left behind.");
+    }
+
+    //Nodes modified directly are saved once their section is invalidated.
+    final YamlNode node = config.getNode("Key");
+    check("value".equals(config.getString("Key")), "The value wasn't read before the direct edit.");
+    node.setValues(new ArrayList<>(Collections.singletonList(new YamlValue(new ArrayList<>(), "direct", "String"))));
+    check("direct".equals(config.getString("Key")), "A direct edit returned the stale value.");
+    config.getSection("Key").invalidateCache();
+    check(config.isDirty(), "Invalidating a direct edit didn't mark the configuration dirty.");
+    check(config.save(), "Saving a direct edit failed: " + config.getSaveFailure());
+    check(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).contains("Key: direct"), "A direct edit wasn't saved.");
+
+    //A save that can't be written is reported instead of swallowed.
+    check(!config.save(directory.resolve("missing").resolve("b.yml").toFile()), "Saving into a missing directory succeeded.");
+    check(config.getSaveFailure() != null, "A failed save didn't report its cause.");
+
+    System.out.println("AtomicWriteTest passed.");
+  }
+
+  private static void check(boolean condition, String message) {
+    if(!condition) throw new AssertionError(message);
+  }
+}
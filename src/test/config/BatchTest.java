@@ -0,0 +1,62 @@
+package test.config;
+
+import net.tnemc.config.ConfigSection;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Checks that a batch publishes the values and the structure it changes together.
+ */
+public class BatchTest {
+
+  private static final int BATCHES = 2000;
+
+  public static void main(String[] args) throws Exception {
+    final ConfigSection config = new ConfigSection(null);
+    config.setOrCreate("Pair.Count", "0");
+
+    //Every key a reader sees must come with a count at least as new as the batch that added it.
+    final AtomicBoolean stop = new AtomicBoolean();
+    final AtomicInteger torn = new AtomicInteger();
+    final Thread reader = new Thread(()->{
+      final ConfigSection pair = config.getSection("Pair");
+      while(!stop.get()) {
+        final int added = pair.getKeys(false).size() - 1;
+        if(pair.getInt("Count") < added) torn.incrementAndGet();
+      }
+    });
+    reader.start();
+    for(int i = 1; i <= BATCHES; i++) {
+      final int batch = i;
+      config.batch(changes -> changes.setOrCreate("Pair.K" + batch, "x").set("Pair.Count", String.valueOf(batch)));
+    }
+    stop.set(true);
+    reader.join();
+
+    check(torn.get() == 0, "A reader saw keys added by a batch before its values.");
+    check(config.getInt("Pair.Count") == BATCHES, "The last batch wasn't published.");
+    check(config.getSection("Pair").getKeys(false).size() == BATCHES + 1, "Keys added by a batch were lost.");
+
+    //Values of sections created and changed in the same batch, and changes to removed sections.
+    final ConfigSection before = config.getSection("Pair.K1");
+    config.batch(changes -> changes.setOrCreate("New.Key", "1").set("New.Key", "2").set("Pair.K1", "y").remove("Pair.K1"));
+    check(config.getInt("New.Key") == 2, "A section created by the batch didn't receive its later values.");
+    check(!config.contains("Pair.K1"), "A section removed by the batch was published again.");
+    check("x".equals(before.getBaseNode().getValues().get(0).getValue()), "A section obtained before the batch changed.");
+
+    System.out.println("BatchTest passed.");
+  }
+
+  private static void check(boolean condition, String message) {
+    if(!condition) throw new AssertionError(message);
+  }
+}
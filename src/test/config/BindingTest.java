@@ -0,0 +1,120 @@
+package test.config;
+
+import net.tnemc.config.CommentedConfiguration;
+import net.tnemc.config.ConfigBinding;
+import net.tnemc.config.ConfigKey;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Checks that bindings reject unsupported members, publish rebinds whole, and keep their values when a reload
+ * leaves them invalid.
+ */
+public class BindingTest {
+
+  public interface WithDefault {
+    @ConfigKey("A") int a();
+
+    default int doubled() {
+      return a() * 2;
+    }
+  }
+
+  public interface Settings {
+    @ConfigKey("A") int a();
+    @ConfigKey("Names") List<String> names();
+  }
+
+  public interface IntNames {
+    @ConfigKey("Names") List<Integer> names();
+  }
+
+  public static class NameSet {
+    @ConfigKey("Names") private Set<String> names;
+  }
+
+  public static class Pair {
+    @ConfigKey("A") private int a;
+    @ConfigKey("B") private int b;
+  }
+
+  public static void main(String[] args) throws Exception {
+    final Path file = Files.createTempDirectory("tnc-binding").resolve("binding.yml");
+    Files.write(file, "A: 0\nB: 0\nNames:\n  - first\n  - second\n".getBytes(StandardCharsets.UTF_8));
+    final CommentedConfiguration config = new CommentedConfiguration(file, null);
+    config.load(false);
+
+    try {
+      ConfigBinding.bind(WithDefault.class, config);
+      throw new AssertionError("Interfaces with default methods should be rejected.");
+    } catch(IllegalArgumentException expected) {
+      check(expected.getMessage().contains("doubled"), "The rejection doesn't name the default method.");
+    }
+
+    //Collections of anything but strings are rejected when binding rather than bound as strings.
+    try {
+      ConfigBinding.bind(IntNames.class, config);
+      throw new AssertionError("A List<Integer> member should be rejected.");
+    } catch(IllegalArgumentException expected) { }
+    try {
+      ConfigBinding.bind(NameSet.class, config);
+      throw new AssertionError("A Set<String> member should be rejected.");
+    } catch(IllegalArgumentException expected) { }
+
+    final ConfigBinding<Settings> settings = ConfigBinding.bind(Settings.class, config);
+    check(settings.get().a() == 0 && settings.get().names().size() == 2, "The interface wasn't bound.");
+    config.set("A", "5");
+    settings.rebind();
+    check(settings.get().a() == 5, "The interface didn't return the rebound value.");
+    config.set("A", "0");
+
+    //A class rebind is published whole, so readers never see the fields of two binds mixed.
+    final ConfigBinding<Pair> binding = ConfigBinding.bind(Pair.class, config);
+    final AtomicBoolean stop = new AtomicBoolean();
+    final AtomicInteger torn = new AtomicInteger();
+    final Thread reader = new Thread(()->{
+      while(!stop.get()) {
+        final Pair pair = binding.get();
+        if(pair.a != pair.b) torn.incrementAndGet();
+      }
+    });
+    reader.start();
+    for(int i = 1; i <= 10000; i++) {
+      config.set("A", String.valueOf(i));
+      config.set("B", String.valueOf(i));
+      binding.rebind();
+    }
+    stop.set(true);
+    reader.join();
+
+    check(torn.get() == 0, "A reader saw the fields of two binds mixed.");
+    check(binding.get().a == 10000, "The last rebind wasn't published.");
+
+    //A reload that leaves a node invalid keeps the previous values.
+    Files.write(file, "A: invalid\nB: 1\nNames:\n  - first\n".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+    config.reload();
+    check(binding.get().a == 10000, "A failed rebind replaced the bound values.");
+
+    System.out.println("BindingTest passed.");
+  }
+
+  private static void check(boolean condition, String message) {
+    if(!condition) throw new AssertionError(message);
+  }
+}
@@ -0,0 +1,54 @@
+package test.config;
+
+import net.tnemc.config.CommentedConfiguration;
+import net.tnemc.config.ConfigPath;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Checks the opt-in case-insensitive lookup mode.
+ */
+public class CaseInsensitiveTest {
+
+  public static void main(String[] args) throws Exception {
+    final Path file = Files.createTempDirectory("tnc-case").resolve("config.yml");
+    Files.write(file, "Core:\n  Server:\n    Name: Main\n    name: Exact\n  UUID: true\n".getBytes(StandardCharsets.UTF_8));
+
+    for(boolean lazy : new boolean[] { false, true }) {
+      final CommentedConfiguration config = new CommentedConfiguration(file, null);
+      config.setLazy(lazy);
+      config.load(false);
+
+      check(!config.contains("core.server.NAME"), "Lookups ignored case before it was enabled.");
+
+      config.setCaseInsensitive(true);
+      check("Main".equals(config.getString("CORE.SERVER.NAME")), "A lookup ignoring case failed.");
+      check("Exact".equals(config.getString("core.server.name")), "An exact match wasn't preferred.");
+      check(config.getBool(ConfigPath.of("core.uuid")), "A precompiled path didn't ignore case.");
+      check(config.getSection("core").getKeys(false).contains("Server"), "Keys lost their original case.");
+
+      //Sections added afterwards inherit the setting.
+      config.setOrCreate("Core.Added.Key", "value");
+      check("value".equals(config.getSection("Core.Added").getString("KEY")), "An added section didn't inherit the setting.");
+
+      config.setCaseInsensitive(false);
+      check(!config.contains("core.server.NAME"), "Lookups still ignored case after it was disabled.");
+    }
+
+    System.out.println("CaseInsensitiveTest passed.");
+  }
+
+  private static void check(boolean condition, String message) {
+    if(!condition) throw new AssertionError(message);
+  }
+}
@@ -0,0 +1,80 @@
+package test.config;
+
+import net.tnemc.config.CommentedConfiguration;
+import net.tnemc.config.ConfigCursor;
+import net.tnemc.config.ConfigSection;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Checks that cursors and streams walk the same sections as {@link ConfigSection#getKeys(boolean)}, and that
+ * splitting a stream neither drops nor repeats sections.
+ */
+public class CursorTest {
+
+  public static void main(String[] args) throws Exception {
+    final Path file = Files.createTempDirectory("tnc-cursor").resolve("config.yml");
+    final StringBuilder builder = new StringBuilder();
+    for(int i = 0; i < 50; i++) {
+      builder.append("Section").append(i).append(":\n");
+      for(int child = 0; child < i % 4; child++) {
+        builder.append("  Child").append(child).append(":\n    Leaf: ").append(i).append("\n");
+      }
+      if(i % 4 == 0) builder.append("  Value: ").append(i).append("\n");
+    }
+    Files.write(file, builder.toString().getBytes(StandardCharsets.UTF_8));
+
+    for(boolean lazy : new boolean[] { false, true }) {
+      final CommentedConfiguration config = new CommentedConfiguration(file, null);
+      config.setLazy(lazy);
+      config.load(false);
+      final List<String> keys = new ArrayList<>(config.getKeys(true));
+
+      final List<String> walked = new ArrayList<>();
+      final ConfigCursor cursor = config.cursor();
+      while(cursor.next()) {
+        walked.add(cursor.getPath());
+      }
+      check(walked.equals(keys), "The cursor walked other sections than getKeys(true).");
+
+      final List<ConfigSection> sections = config.stream().collect(Collectors.toList());
+      check(sections.size() == keys.size(), "The stream walked " + sections.size() + " sections instead of " + keys.size());
+      check(config.parallelStream().collect(Collectors.toList()).equals(sections), "The parallel stream differs.");
+
+      //Splitting as far as possible must cover every section exactly once, in order.
+      final List<ConfigSection> split = new ArrayList<>();
+      drain(config.stream().spliterator(), split);
+      check(split.equals(sections), "Splitting dropped, repeated or reordered sections.");
+    }
+
+    System.out.println("CursorTest passed.");
+  }
+
+  private static void drain(Spliterator<ConfigSection> spliterator, List<ConfigSection> sections) {
+    final Spliterator<ConfigSection> prefix = spliterator.trySplit();
+    if(prefix != null) {
+      drain(prefix, sections);
+      drain(spliterator, sections);
+      return;
+    }
+    spliterator.forEachRemaining(sections::add);
+  }
+
+  private static void check(boolean condition, String message) {
+    if(!condition) throw new AssertionError(message);
+  }
+}
@@ -0,0 +1,83 @@
+package test.config;
+
+import net.tnemc.config.CommentedConfiguration;
+import net.tnemc.config.ConfigCursor;
+import net.tnemc.config.ConfigSection;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Checks that deep key indexes follow changes to their tree, including sections moved under another key.
+ */
+public class KeyIndexTest {
+
+  public static void main(String[] args) throws Exception {
+    final Path file = Files.createTempDirectory("tnc-keys").resolve("config.yml");
+    Files.write(file, "A:\n  One: 1\n  Two: 2\nB:\n  Inner:\n    Deep: 3\nC:\n  Key: 4\n".getBytes(StandardCharsets.UTF_8));
+    final CommentedConfiguration config = new CommentedConfiguration(file, null);
+    config.load(false);
+
+    final Set<String> root = config.getKeys(true);
+    final Set<String> a = config.getSection("A").getKeys(true);
+    final Set<String> b = config.getSection("B").getKeys(true);
+    final Set<String> c = config.getSection("C").getKeys(true);
+
+    //The sets are live views of the indexes.
+    config.setOrCreate("A.Three", "3");
+    check(root.contains("A.Three") && a.contains("Three") && a.size() == 3, "An added key wasn't indexed.");
+    check(!b.contains("Three") && !c.contains("Three"), "An added key was indexed by an unrelated section.");
+    matches(config, root);
+
+    //Iterating isn't affected by changes made meanwhile.
+    for(String key : a) {
+      if(key.equals("One")) config.remove("A.One");
+    }
+    check(!a.contains("One") && a.size() == 2, "A removed key is still indexed.");
+
+    //A section moved under another key keeps every index correct, including those of the other sections.
+    final ConfigSection inner = config.getSection("B.Inner");
+    config.remove("B.Inner");
+    config.getSection("C").addChildIndex(-1, "Moved", inner);
+    check(b.isEmpty(), "A moved section is still indexed below its old parent.");
+    check(c.contains("Moved.Deep"), "A moved section wasn't indexed below its new parent.");
+    config.setOrCreate("C.Moved.Added", "5");
+    check(root.contains("C.Moved.Added") && c.contains("Moved.Added"), "A key added to a moved section wasn't indexed.");
+    check(config.getSection("C.Moved").getKeys(true).contains("Added"), "The moved section's own keys are wrong.");
+    config.setOrCreate("A.Four", "4");
+    check(a.contains("Four") && root.contains("A.Four"), "Indexes stopped updating after a section was moved.");
+    matches(config, root);
+    matches(config.getSection("A"), a);
+    matches(config.getSection("C"), c);
+
+    System.out.println("KeyIndexTest passed.");
+  }
+
+  /**
+   * Checks the keys against a walk of the section.
+   */
+  private static void matches(ConfigSection section, Set<String> keys) {
+    final List<String> walked = new ArrayList<>();
+    final ConfigCursor cursor = section.cursor();
+    while(cursor.next()) {
+      walked.add(cursor.getPath());
+    }
+    check(walked.equals(new ArrayList<>(keys)), "The keys " + keys + " don't match the tree " + walked + ".");
+  }
+
+  private static void check(boolean condition, String message) {
+    if(!condition) throw new AssertionError(message);
+  }
+}
@@ -0,0 +1,66 @@
+package test.config;
+
+import net.tnemc.config.ConfigSection;
+import net.tnemc.config.LayeredConfiguration;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Checks that the layered index follows changes to its layers, and that structural changes go to the overrides.
+ */
+public class LayeredTest {
+
+  public static void main(String[] args) throws Exception {
+    final ConfigSection defaults = new ConfigSection(null);
+    defaults.setOrCreate("Core.Name", "default");
+    defaults.setOrCreate("Core.Port", "25565");
+
+    final LayeredConfiguration config = new LayeredConfiguration();
+    config.addLayer("defaults", defaults);
+    check("default".equals(config.getString("Core.Name")), "The defaults layer wasn't indexed.");
+
+    //Structural changes to a lower layer are picked up by the next lookup.
+    defaults.setOrCreate("Core.Added", "added");
+    check("added".equals(config.getString("Core.Added")), "A section added to a layer wasn't indexed.");
+    defaults.remove("Core.Port");
+    check(!config.contains("Core.Port"), "A section removed from a layer is still indexed.");
+
+    //Removing an override falls back to the layer below, which is left alone.
+    config.set("Core.Name", "override");
+    check("override".equals(config.getString("Core.Name")), "The override wasn't preferred.");
+    check(config.remove("Core.Name"), "The override couldn't be removed.");
+    check("default".equals(config.getString("Core.Name")), "Removing the override didn't fall back.");
+    check(!config.remove("Core.Added"), "A section of a lower layer was removed.");
+
+    config.batch(batch -> batch.setOrCreate("Core.Batched", "batched"));
+    check("overrides".equals(config.getWinningLayer("Core.Batched")), "A batch didn't go to the overrides.");
+
+    final List<String> streamed = config.stream().map(section -> section.getBaseNode().getNode())
+                                        .collect(Collectors.toList());
+    check(streamed.equals(config.getKeys(true).stream().collect(Collectors.toList())),
+          "The stream didn't return the winning section of every path.");
+
+    try {
+      config.cursor();
+      throw new AssertionError("A cursor over the layers should be rejected.");
+    } catch(UnsupportedOperationException expected) { }
+
+    config.removeLayer("defaults");
+    check(!config.contains("Core.Added"), "A removed layer is still indexed.");
+
+    System.out.println("LayeredTest passed.");
+  }
+
+  private static void check(boolean condition, String message) {
+    if(!condition) throw new AssertionError(message);
+  }
+}
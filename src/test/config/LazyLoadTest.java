@@ -0,0 +1,84 @@
+package test.config;
+
+import net.tnemc.config.CommentedConfiguration;
+import net.tnemc.config.ConfigChange;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Checks that a lazily loaded configuration reads, writes and reloads the same as one loaded in full.
+ */
+public class LazyLoadTest {
+
+  public static void main(String[] args) throws Exception {
+    final Path directory = Files.createTempDirectory("tnc-lazy-load");
+    final Path file = directory.resolve("config.yml");
+    Files.write(file, tree("1").getBytes(StandardCharsets.UTF_8));
+
+    final CommentedConfiguration eager = load(file, false);
+    final CommentedConfiguration lazy = load(file, true);
+
+    check(eager.getKeys(true).equals(lazy.getKeys(true)), "The deep keys differ.");
+    for(String key : eager.getKeys(true)) {
+      check(eager.getStringList(key).equals(lazy.getStringList(key)), "The values of " + key + " differ.");
+    }
+    check(lazy.getInt("Section2.Inner.Leaf1") == 1, "A deep lookup failed.");
+
+    //Writes below sections that haven't been decoded yet.
+    lazy.setOrCreate("Section4.Inner.Added", "new");
+    check("new".equals(lazy.getString("Section4.Inner.Added")), "A write below an undecoded section was lost.");
+    check(lazy.getSection("Section4.Inner").getKeys(false).contains("Leaf0"), "A write dropped undecoded siblings.");
+
+    //A reload reports the same changes whether or not the sections were decoded.
+    Files.write(file, tree("1").getBytes(StandardCharsets.UTF_8));
+    final CommentedConfiguration eagerReloaded = load(file, false);
+    final CommentedConfiguration lazyReloaded = load(file, true);
+    Files.write(file, tree("2").getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+
+    final List<ConfigChange> eagerChanges = eagerReloaded.reload();
+    final List<ConfigChange> lazyChanges = lazyReloaded.reload();
+    check(eagerChanges.size() == 10, "A reload reported " + eagerChanges.size() + " changes instead of 10.");
+    check(eagerChanges.toString().equals(lazyChanges.toString()), "A lazy reload reported other changes: " + lazyChanges);
+    check(lazyReloaded.getInt("Section0.Inner.Leaf0") == 2, "The lazy reload wasn't applied.");
+
+    System.out.println("LazyLoadTest passed.");
+  }
+
+  private static CommentedConfiguration load(Path file, boolean lazy) {
+    final CommentedConfiguration config = new CommentedConfiguration(file, null);
+    config.setLazy(lazy);
+    config.load(false);
+    return config;
+  }
+
+  /**
+   * Builds five sections, each with two leaves below an inner section, whose leaves hold the specified value.
+   */
+  private static String tree(String value) {
+    final StringBuilder builder = new StringBuilder();
+    for(int i = 0; i < 5; i++) {
+      builder.append("Section").append(i).append(":\n  Inner:\n");
+      for(int leaf = 0; leaf < 2; leaf++) {
+        builder.append("    Leaf").append(leaf).append(": ").append(value).append("\n");
+      }
+    }
+    return builder.toString();
+  }
+
+  private static void check(boolean condition, String message) {
+    if(!condition) throw new AssertionError(message);
+  }
+}
@@ -1,6 +1,7 @@
 package test.config;
 
 import net.tnemc.config.CommentedConfiguration;
+import net.tnemc.config.ConfigPath;
 
 import java.io.File;
 import java.nio.file.Paths;
@@ -38,6 +39,10 @@ public class MainTest {
     //Simple boolean retrieval
     System.out.println(config.getBool("Core.UUID"));
 
+    //Simple boolean retrieval through a precompiled path, which only splits the node once.
+    final ConfigPath uuid = ConfigPath.of("Core.UUID");
+    System.out.println(config.getBool(uuid));
+
 
     //We now Save our configuration.
     config.save(file);
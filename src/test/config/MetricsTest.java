@@ -0,0 +1,72 @@
+package test.config;
+
+import net.tnemc.config.ConfigMetrics;
+import net.tnemc.config.ConfigMetricsListener;
+import net.tnemc.config.ConfigSection;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Checks that lookup metrics are capped per prefix, and that failing listeners don't stop recording.
+ */
+public class MetricsTest {
+
+  public static void main(String[] args) throws Exception {
+    final ConfigMetrics metrics = ConfigMetrics.get();
+    final ConfigSection config = new ConfigSection(null);
+    config.setOrCreate("Core.Name", "value");
+
+    final AtomicInteger calls = new AtomicInteger();
+    final ConfigMetricsListener failing = new ConfigMetricsListener() {
+      @Override
+      public void lookup(String path, boolean found) {
+        calls.incrementAndGet();
+        throw new IllegalStateException("Listener failure.");
+      }
+    };
+    final Logger logger = Logger.getLogger(ConfigMetrics.class.getName());
+    final Level level = logger.getLevel();
+    logger.setLevel(Level.OFF);
+
+    metrics.reset();
+    metrics.addListener(failing);
+    metrics.setEnabled(true);
+    try {
+      final int extra = 50;
+      for(int i = 0; i < ConfigMetrics.MAX_PREFIXES + extra; i++) {
+        config.getString("Generated" + i + ".Key");
+      }
+      config.getString("Core.Name");
+
+      final Map<String, Long> lookups = metrics.getLookupsByPrefix();
+      check(lookups.size() == ConfigMetrics.MAX_PREFIXES + 1, "The prefixes weren't capped: " + lookups.size());
+      check(lookups.get(ConfigMetrics.OTHER_PREFIX) == extra + 1, "The other prefixes weren't counted together.");
+      check(metrics.getLookups() == ConfigMetrics.MAX_PREFIXES + extra + 1, "Lookups were lost.");
+      check(calls.get() == ConfigMetrics.MAX_PREFIXES + extra + 1, "A failing listener stopped being called.");
+
+      metrics.reset();
+      check(metrics.getLookups() == 0 && metrics.getLookupsByPrefix().isEmpty(), "Reset left lookups behind.");
+    } finally {
+      metrics.setEnabled(false);
+      metrics.removeListener(failing);
+      logger.setLevel(level);
+    }
+
+    System.out.println("MetricsTest passed.");
+  }
+
+  private static void check(boolean condition, String message) {
+    if(!condition) throw new AssertionError(message);
+  }
+}
@@ -0,0 +1,88 @@
+package test.config;
+
+import net.tnemc.config.CommentedConfiguration;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Checks that the typed getters, which cache their parsed values, always return the value of their node while
+ * other threads parse and write the same sections.
+ */
+public class ParsedValuesTest {
+
+  private static final int NODES = 2000;
+  private static final int THREADS = 4;
+
+  public static void main(String[] args) throws Exception {
+    final Path file = Files.createTempDirectory("tnc-parsed-values").resolve("config.yml");
+    final StringBuilder builder = new StringBuilder("Root:\n");
+    for(int i = 0; i < NODES; i++) {
+      builder.append("  k").append(i).append(": ").append((i % 2 == 0)? "bad" : "7").append("\n");
+    }
+    Files.write(file, builder.toString().getBytes(StandardCharsets.UTF_8));
+
+    final CommentedConfiguration config = new CommentedConfiguration(file, null);
+    config.load(false);
+
+    //Every other node fails to parse, which must always return the default.
+    final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      for(int round = 0; round < 10; round++) {
+        final List<Future<Integer>> results = new ArrayList<>();
+        for(int t = 0; t < THREADS; t++) {
+          final int thread = t;
+          final boolean write = round > 0 && thread == 0;
+          results.add(executor.submit(()->{
+            int mismatches = 0;
+            for(int i = 0; i < NODES; i++) {
+              final String node = "Root.k" + i;
+              final long expected = (i % 2 == 0)? -1 : 7;
+              if(write) config.set(node, (i % 2 == 0)? "bad" : "7");
+
+              switch((i + thread) % 3) {
+                case 0:
+                  if(config.getInt(node, -1) != expected) mismatches++;
+                  break;
+                case 1:
+                  if(config.getLong(node, -1) != expected) mismatches++;
+                  break;
+                default:
+                  if(config.getDouble(node, -1) != expected) mismatches++;
+              }
+            }
+            return mismatches;
+          }));
+        }
+        for(Future<Integer> result : results) {
+          check(result.get() == 0, "A typed getter returned a value that doesn't match its node.");
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    check("7".equals(config.getString("Root.k1")), "getString didn't return the value of its node.");
+    check("none".equals(config.getString("Root.missing", "none")), "getString didn't return the default.");
+
+    System.out.println("ParsedValuesTest passed.");
+  }
+
+  private static void check(boolean condition, String message) {
+    if(!condition) throw new AssertionError(message);
+  }
+}
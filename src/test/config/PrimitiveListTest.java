@@ -0,0 +1,48 @@
+package test.config;
+
+import net.tnemc.config.ConfigSection;
+import net.tnemc.config.IntList;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Checks that primitive lists are shared until their values change, and leave out invalid values.
+ */
+public class PrimitiveListTest {
+
+  public static void main(String[] args) throws Exception {
+    final ConfigSection config = new ConfigSection(null);
+    config.setOrCreate("Ports", "25565", "invalid", "25566");
+
+    final IntList ports = config.getIntList("Ports");
+    check(ports.size() == 2 && ports.getInt(0) == 25565 && ports.getInt(1) == 25566, "The ints were parsed wrong.");
+    check(config.getIntList("Ports") == ports, "The parsed list wasn't shared.");
+    check(config.getLongList("Ports").getLong(1) == 25566L, "The longs were parsed wrong.");
+    check(config.getDoubleList("Ports").getDouble(0) == 25565.0, "The doubles were parsed wrong.");
+
+    final int[] copy = config.getIntArray("Ports");
+    copy[0] = 0;
+    check(ports.getInt(0) == 25565, "Changing a returned array changed the shared values.");
+
+    try {
+      ports.add(1);
+      throw new AssertionError("The shared list should be unmodifiable.");
+    } catch(UnsupportedOperationException expected) { }
+
+    config.set("Ports", "1");
+    check(config.getIntList("Ports").getInt(0) == 1, "The list wasn't parsed again after a change.");
+    check(config.getIntList("Missing").isEmpty(), "A missing node didn't return an empty list.");
+
+    System.out.println("PrimitiveListTest passed.");
+  }
+
+  private static void check(boolean condition, String message) {
+    if(!condition) throw new AssertionError(message);
+  }
+}
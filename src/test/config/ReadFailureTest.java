@@ -0,0 +1,56 @@
+package test.config;
+
+import net.tnemc.config.CommentedConfiguration;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Checks that a load that can't read its files fails, instead of saving over the file with the defaults.
+ */
+public class ReadFailureTest {
+
+  public static void main(String[] args) throws Exception {
+    final Path directory = Files.createTempDirectory("tnc-read-failure");
+
+    //A defaults file that can't be read must fail the load rather than look empty.
+    final Path file = directory.resolve("config.yml");
+    final Path unreadable = Files.createDirectory(directory.resolve("defaults.yml"));
+    Files.write(file, "Core:\n  UUID: false\n".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(1000));
+    try {
+      new CommentedConfiguration(file, unreadable).load();
+      throw new AssertionError("Loading with unreadable defaults should fail.");
+    } catch(UncheckedIOException expected) {
+      check(Files.getLastModifiedTime(file).toMillis() == 1000, "The file was written after a failed load.");
+      check(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).equals("Core:\n  UUID: false\n"),
+            "The file changed after a failed load.");
+    }
+
+    //The same goes for our own file.
+    final Path unreadableFile = Files.createDirectory(directory.resolve("own.yml"));
+    try {
+      new CommentedConfiguration(unreadableFile, null).load(false);
+      throw new AssertionError("Loading an unreadable file should fail.");
+    } catch(UncheckedIOException expected) {
+      check(Files.isDirectory(unreadableFile), "The unreadable file was replaced.");
+    }
+
+    System.out.println("ReadFailureTest passed.");
+  }
+
+  private static void check(boolean condition, String message) {
+    if(!condition) throw new AssertionError(message);
+  }
+}
@@ -0,0 +1,59 @@
+package test.config;
+
+import net.tnemc.config.CommentedConfiguration;
+import net.tnemc.config.ConfigChange;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Checks that reloads read the file like a load does, and report files that can't be read.
+ */
+public class ReloadTest {
+
+  public static void main(String[] args) throws Exception {
+    final Path directory = Files.createTempDirectory("tnc-reload");
+    final Path file = directory.resolve("config.yml");
+    Files.write(file, "Core:\n  Name: first\n".getBytes(StandardCharsets.UTF_8));
+
+    //Reloads go through the snapshot like loads do, and still pick up changes to the file.
+    final CommentedConfiguration config = new CommentedConfiguration(file, null);
+    config.setSnapshots(true);
+    config.load(false);
+    check("first".equals(config.getString("Core.Name")), "The file wasn't loaded.");
+
+    Files.write(file, "Core:\n  Name: second\n".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+    final List<ConfigChange> changes = config.reload();
+    check("second".equals(config.getString("Core.Name")), "The reload didn't pick up the change.");
+    check(changes.size() == 1, "The reload reported " + changes.size() + " changes instead of one.");
+
+    //A file that can't be read fails the reload and keeps the current tree.
+    Files.delete(file);
+    Files.createDirectory(file);
+    try {
+      config.reload();
+      throw new AssertionError("Reloading an unreadable file should fail.");
+    } catch(UncheckedIOException expected) {
+      check("second".equals(config.getString("Core.Name")), "A failed reload replaced the tree.");
+    }
+
+    System.out.println("ReloadTest passed.");
+  }
+
+  private static void check(boolean condition, String message) {
+    if(!condition) throw new AssertionError(message);
+  }
+}
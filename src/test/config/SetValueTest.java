@@ -0,0 +1,54 @@
+package test.config;
+
+import com.hellyard.cuttlefish.grammar.yaml.YamlValue;
+import net.tnemc.config.CommentedConfiguration;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Checks that setValue replaces and appends values without changing the list it previously published.
+ */
+public class SetValueTest {
+
+  public static void main(String[] args) throws Exception {
+    final Path file = Files.createTempDirectory("tnc-set-value").resolve("config.yml");
+    Files.write(file, "List:\n  - a\n  - b\n".getBytes(StandardCharsets.UTF_8));
+    final CommentedConfiguration config = new CommentedConfiguration(file, null);
+    config.load(false);
+
+    final List<YamlValue> published = config.getSection("List").getBaseNode().getValues();
+    config.setValue("List", value("z"), 1);
+    config.setValue("List", value("c"), 2);
+    check(published.size() == 2 && "b".equals(published.get(1).getValue()), "setValue modified the published values.");
+    check(config.getStringList("List").toString().equals("[a, z, c]"), "setValue didn't replace and append.");
+
+    try {
+      config.setValue("List", value("x"), -1);
+      throw new AssertionError("A negative value number should be rejected.");
+    } catch(IndexOutOfBoundsException expected) {
+      check(config.getStringList("List").size() == 3, "A rejected setValue changed the values.");
+    }
+
+    System.out.println("SetValueTest passed.");
+  }
+
+  private static YamlValue value(String value) {
+    return new YamlValue(new ArrayList<>(), value, "String");
+  }
+
+  private static void check(boolean condition, String message) {
+    if(!condition) throw new AssertionError(message);
+  }
+}
@@ -0,0 +1,66 @@
+package test.config;
+
+import net.tnemc.config.CommentedConfiguration;
+import net.tnemc.config.SharedDefaults;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Checks that files loaded on top of {@link SharedDefaults shared defaults} keep sharing the default sections, and
+ * are only saved when they actually change.
+ */
+public class SharedDefaultsTest {
+
+  private static final String DEFAULTS = "Core:\n  Server:\n    Name: Main\n    Port: 25565\n  UUID: true\n";
+
+  public static void main(String[] args) throws Exception {
+    final Path directory = Files.createTempDirectory("tnc-shared-defaults");
+
+    //A file that only holds defaults isn't saved again, and keeps sharing the default sections.
+    final Path defaultsFile = directory.resolve("shared.yml");
+    Files.write(defaultsFile, DEFAULTS.getBytes(StandardCharsets.UTF_8));
+    final SharedDefaults defaults = SharedDefaults.parse(defaultsFile);
+
+    final Path account = directory.resolve("account.yml");
+    Files.write(account, DEFAULTS.getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(account, FileTime.fromMillis(1000));
+
+    final CommentedConfiguration config = new CommentedConfiguration(account, null);
+    config.load(defaults);
+    check(Files.getLastModifiedTime(account).toMillis() == 1000, "Loading an unchanged file saved it.");
+    check(!config.isDirty(), "Loading an unchanged file left it dirty.");
+    check(config.getSection("Core.UUID") == defaults.getRoot().getSection("Core.UUID"),
+          "A node equal to its default isn't shared.");
+
+    //Writes copy the shared section instead of modifying the defaults.
+    config.set("Core.UUID", "false");
+    check(!config.getBool("Core.UUID"), "The write wasn't applied.");
+    check(defaults.getRoot().getBool("Core.UUID"), "The write modified the shared defaults.");
+
+    //A file missing defaults isn't saved just for them.
+    final Path partial = directory.resolve("partial.yml");
+    Files.write(partial, "Core:\n  UUID: false\n".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(partial, FileTime.fromMillis(1000));
+    final CommentedConfiguration partialConfig = new CommentedConfiguration(partial, null);
+    partialConfig.load(defaults);
+    check(Files.getLastModifiedTime(partial).toMillis() == 1000, "Missing shared defaults forced a save.");
+    check("Main".equals(partialConfig.getString("Core.Server.Name")), "A missing node didn't fall back.");
+
+    System.out.println("SharedDefaultsTest passed.");
+  }
+
+  private static void check(boolean condition, String message) {
+    if(!condition) throw new AssertionError(message);
+  }
+}
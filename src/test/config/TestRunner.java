@@ -0,0 +1,37 @@
+package test.config;
+
+/**
+ * Created by creatorfromhell.
+ *
+ * The New Config Library Minecraft Server Plugin
+ *
+ * This work is licensed under the Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International License. To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/4.0/
+ * or send a letter to Creative Commons, PO Box 1866, Mountain View, CA 94042, USA.
+ *
+ * Runs every test harness in this package, stopping at the first failure. The harnesses are compiled as test
+ * sources, so after "mvn test-compile" they run with:
+ * java -cp target/classes:target/test-classes:Cuttlefish-0.0.1.30.jar test.config.TestRunner
+ */
+public class TestRunner {
+
+  public static void main(String[] args) throws Exception {
+    ReadFailureTest.main(args);
+    SharedDefaultsTest.main(args);
+    CursorTest.main(args);
+    CaseInsensitiveTest.main(args);
+    AtomicWriteTest.main(args);
+    ReloadTest.main(args);
+    LayeredTest.main(args);
+    PrimitiveListTest.main(args);
+    BindingTest.main(args);
+    KeyIndexTest.main(args);
+    MetricsTest.main(args);
+    BatchTest.main(args);
+    LazyLoadTest.main(args);
+    ParsedValuesTest.main(args);
+    SetValueTest.main(args);
+
+    System.out.println("All tests passed.");
+  }
+}